@@ -0,0 +1,173 @@
+/*
+* BenchmarkTargets.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Ready-to-run workloads for the JMH benchmarks in benchmarks/. JMH does
+* not accept benchmarks in the default package, and classes in a named
+* package cannot refer to the default package, so the benchmarks load this
+* class by name and only see the java.util.function objects it returns.
+*
+* Each method builds its input once, outside the measured code, from the
+* number of vertices and a seed. The returned Supplier runs the operation
+* once and returns something that depends on the work, for the benchmark
+* to hand to its Blackhole. Inputs that an operation changes are restored
+* at the start of every call, which is included in the measurement but
+* is linear and small next to the operation itself.
+*
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.function.Supplier;
+
+public class BenchmarkTargets{
+
+    //A graph with generated coordinates and weights
+    private static Graph graph(int n, long seed){
+        Graph g = new Graph(n);
+        g.generateCoords(seed);
+        g.generateAM();
+        return g;
+    }
+
+    //OptimalTSP.optimal, the brute force search over all (n-1)! orders
+    public static Supplier<Object> optimal(int n, long seed){
+        Graph g = graph(n, seed);
+        int[] nodes = new int[n - 1];
+        for(int i = 0; i < n - 1; i++){
+            nodes[i] = i + 1;
+        }
+        return () -> {
+            OptimalTSP solver = new OptimalTSP();
+            solver.optimal(nodes.clone(), 0, n, g);
+            return solver.getMinOrder();
+        };
+    }
+
+    //MstTSP.mst, Prim's algorithm over the Edge BinaryHeap, on a cleared tree
+    public static Supplier<Object> mst(int n, long seed){
+        Graph g = graph(n, seed);
+        int[] empty = new int[n];
+        Arrays.fill(empty, -1);
+        return () -> {
+            g.setMstParents(empty.clone());
+            MstTSP.mst(g);
+            return g.getMstParents();
+        };
+    }
+
+    //GreedyTSP.greedy, including the sort of the unsorted edge list
+    public static Supplier<Object> greedy(int n, long seed){
+        Graph original = graph(n, seed);
+        original.generateEdges(original);
+        ArrayList<Edge> unsorted = new ArrayList<Edge>(original.getEdges());
+        return () -> {
+            ArrayList<Edge> edges = original.getEdges();
+            edges.clear();
+            edges.addAll(unsorted);
+            return GreedyTSP.greedy(original);
+        };
+    }
+
+    //Graph.generateAM, all n(n-1)/2 weights of a graph
+    public static Supplier<Object> generateAM(int n, long seed){
+        Graph g = new Graph(n);
+        g.generateCoords(seed);
+        return () -> {
+            g.generateAM();
+            return g;
+        };
+    }
+
+    //Quicksort.quicksort on a shuffled copy of the n(n-1)/2 edges of a graph
+    public static Supplier<Object> quicksort(int n, long seed){
+        Graph g = graph(n, seed);
+        g.generateEdges(g);
+        ArrayList<Edge> shuffled = new ArrayList<Edge>(g.getEdges());
+        Collections.shuffle(shuffled, new Random(seed));
+        return () -> Quicksort.quicksort(new ArrayList<Edge>(shuffled));
+    }
+
+    /*
+    * BinaryHeap: adds one edge per vertex, lowers the key of every other
+    * vertex, then removes everything
+    */
+    public static Supplier<Object> binaryHeap(int n, long seed){
+        Graph g = graph(n, seed);
+        Random random = new Random(seed);
+        Edge[] first = new Edge[n];
+        Edge[] lighter = new Edge[n];
+        for(int v = 0; v < n; v++){
+            int a = (v + 1 + random.nextInt(n - 1)) % n;
+            int b = (v + 1 + random.nextInt(n - 1)) % n;
+            boolean swap = g.getWeight(v, a) < g.getWeight(v, b);
+            first[v] = new Edge(v, swap ? b : a, g);
+            lighter[v] = new Edge(v, swap ? a : b, g);
+        }
+        return () -> {
+            BinaryHeap heap = new BinaryHeap(n, g);
+            for(Edge e : first){
+                heap.add(e);
+            }
+            for(int v = 0; v < n; v += 2){
+                heap.update(lighter[v]);
+            }
+            Edge last = null;
+            while(!heap.isEmpty()){
+                last = heap.remove();
+            }
+            return last;
+        };
+    }
+
+    //PathCompression: joins n random pairs of sets, then finds every element
+    public static Supplier<Object> pathCompression(int n, long seed){
+        Random random = new Random(seed);
+        int[] a = new int[n];
+        int[] b = new int[n];
+        for(int i = 0; i < n; i++){
+            a[i] = random.nextInt(n);
+            b[i] = random.nextInt(n);
+        }
+        return () -> {
+            PathCompression sets = new PathCompression(n);
+            for(int i = 0; i < n; i++){
+                int r1 = sets.find(a[i]);
+                int r2 = sets.find(b[i]);
+                if(r1 != r2){
+                    sets.union(r1, r2);
+                }
+            }
+            long sum = 0;
+            for(int i = 0; i < n; i++){
+                sum += sets.find(i);
+            }
+            return sum;
+        };
+    }
+
+    //DisjointSet: the same workload as pathCompression()
+    public static Supplier<Object> disjointSet(int n, long seed){
+        Random random = new Random(seed);
+        int[] a = new int[n];
+        int[] b = new int[n];
+        for(int i = 0; i < n; i++){
+            a[i] = random.nextInt(n);
+            b[i] = random.nextInt(n);
+        }
+        return () -> {
+            DisjointSet sets = new DisjointSet(n);
+            for(int i = 0; i < n; i++){
+                sets.union(a[i], b[i]);
+            }
+            long sum = 0;
+            for(int i = 0; i < n; i++){
+                sum += sets.find(i);
+            }
+            return sum;
+        };
+    }
+}
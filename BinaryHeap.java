@@ -54,23 +54,23 @@ public class BinaryHeap{
 		location[jIndex] = t;
 	}
 
-	//Moves the given node up
+	//Moves the given node up while it is lighter than its parent
 	public void swim(int i){
-		while((i > 1) && (heap.get(i).compare(heap.get(i/2)) > 0)){
+		while((i > 1) && (heap.get(i).compare(heap.get(i/2)) < 0)){
 			swap(i, i/2);
 			i = i/2;
 		}
 	}
 
-	//Sinks the given node down
+	//Sinks the given node down while it is heavier than a child
 	public void sink(int i){
 		int size = heap.size() - 1;
-		while(size > i * 2){
+		while(size >= i * 2){
 			int j = i * 2;
-			if((j < size) && (heap.get(j).compare(heap.get(j + 1)) < 0)){
+			if((j < size) && (heap.get(j).compare(heap.get(j + 1)) > 0)){
 				j++;
 			}
-			if(heap.get(i).compare(heap.get(j)) >= 0){
+			if(heap.get(i).compare(heap.get(j)) <= 0){
 				break;
 			}
 			swap(i, j);
@@ -102,9 +102,9 @@ public class BinaryHeap{
 		return heap.size() == 1;
 	}
 
-	//Checks node priority and updates accordingly
+	//Replaces the node's edge if the new one is lighter (decrease-key)
 	public void update(Edge edge){
-		if(edge.compare(heap.get(location[edge.row])) > 0){
+		if(edge.compare(heap.get(location[edge.row])) < 0){
 			heap.set(location[edge.row], edge);
 			swim(location[edge.row]);
 		}
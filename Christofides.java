@@ -0,0 +1,208 @@
+/*
+* Christofides.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Turns the minimum spanning tree stored in a Graph into a tour with
+* Christofides' algorithm. The vertices of odd degree in the tree are
+* matched in pairs, the tree and matching edges together have an Euler
+* circuit, and the circuit is shortcut to a tour by skipping vertices that
+* were already visited. With a minimum weight matching the tour is at most
+* 1.5 times the optimal length, against 2 times for the pre-order walk.
+*
+*/
+
+public class Christofides implements TspSolver{
+
+    //Largest graph for the exact matching, which takes O(m^2) memory and O(m^3) time
+    public static final int EXACT_LIMIT = 2000;
+
+    private final String mstMode;
+    private final boolean exact;
+
+    /*
+    * Constructor for the Christofides solver
+    *
+    * Arguments:
+    *   mstMode: how the MST is built, see MstTSP
+    *   exact: use a minimum weight matching, otherwise a greedy one
+    *
+    */
+    public Christofides(String mstMode, boolean exact){
+        MstTSP.checkMode(mstMode);
+        this.mstMode = mstMode;
+        this.exact = exact;
+    }
+
+    public String name(){
+        return exact ? "christofides" : "christofides-greedy";
+    }
+
+    /*
+    * Builds the MST and turns it into a tour
+    *
+    * Arguments:
+    *   g: the graph to build a tour for, the MST is stored in it
+    *
+    * Returns:
+    *   the tour with the phases mst and matching and tour
+    *
+    */
+    public TspResult solve(Graph g){
+        g.beginSolve();
+        try{
+            long start = System.nanoTime();
+            MstTSP.build(g, mstMode);
+            long mstDone = System.nanoTime();
+            int[] tour = tour(g, exact);
+            long tourDone = System.nanoTime();
+            return new TspResult(tour, g.tourDistance(tour), new String[]{"mst", "matching and tour"},
+                    new long[]{mstDone - start, tourDone - mstDone});
+        }finally{
+            g.endSolve();
+        }
+    }
+
+    /*
+    * Turns the MST already stored in the graph into a tour
+    *
+    * Arguments:
+    *   g: a graph whose MST has been built
+    *
+    * Returns:
+    *   the tour with the single phase matching and tour
+    *
+    */
+    public TspResult fromTree(Graph g){
+        long start = System.nanoTime();
+        int[] tour = tour(g, exact);
+        long tourDone = System.nanoTime();
+        return new TspResult(tour, g.tourDistance(tour), new String[]{"matching and tour"},
+                new long[]{tourDone - start});
+    }
+
+    /*
+    * Builds a tour from the graph's minimum spanning tree
+    *
+    * Arguments:
+    *   g: a graph whose MST has been built
+    *   exact: use a minimum weight matching, otherwise a greedy one
+    *
+    * Returns:
+    *   the tour, starting at vertex 0
+    *
+    */
+    public static int[] tour(Graph g, boolean exact){
+        int n = g.numberOfNodes();
+        int[] parent = g.getMstParents();
+
+        //odd degree vertices of the tree
+        int[] degree = new int[n];
+        for(int v = 0; v < n; v++){
+            if(parent[v] != -1){
+                degree[v]++;
+                degree[parent[v]]++;
+            }
+        }
+        int oddCount = 0;
+        for(int v = 0; v < n; v++){
+            if(degree[v] % 2 == 1)
+                oddCount++;
+        }
+        int[] odd = new int[oddCount];
+        oddCount = 0;
+        for(int v = 0; v < n; v++){
+            if(degree[v] % 2 == 1)
+                odd[oddCount++] = v;
+        }
+        int[] mate = exact ? PerfectMatching.minimum(g, odd) : PerfectMatching.greedy(g, odd);
+
+        //edges of the multigraph, tree edges first, then matching edges
+        int edges = n - 1 + odd.length / 2;
+        int[] from = new int[Math.max(edges, 0)];
+        int[] to = new int[from.length];
+        int e = 0;
+        for(int v = 0; v < n; v++){
+            if(parent[v] != -1){
+                from[e] = v;
+                to[e] = parent[v];
+                e++;
+            }
+        }
+        for(int i = 0; i < odd.length; i++){
+            if(i < mate[i]){
+                from[e] = odd[i];
+                to[e] = odd[mate[i]];
+                e++;
+            }
+        }
+        return shortcut(n, eulerCircuit(n, from, to));
+    }
+
+    /*
+    * Finds an Euler circuit with Hierholzer's algorithm, using an explicit
+    * stack instead of recursion
+    *
+    * Arguments:
+    *   n: the number of vertices
+    *   from, to: the edges, every vertex must have even degree
+    *
+    * Returns:
+    *   the vertices of the circuit starting and ending at vertex 0
+    *
+    */
+    static int[] eulerCircuit(int n, int[] from, int[] to){
+        int m = from.length;
+        int[] start = new int[n + 1];
+        for(int i = 0; i < m; i++){
+            start[from[i] + 1]++;
+            start[to[i] + 1]++;
+        }
+        for(int v = 0; v < n; v++){
+            start[v + 1] += start[v];
+        }
+        int[] incident = new int[2 * m];
+        int[] next = java.util.Arrays.copyOf(start, n + 1);
+        for(int i = 0; i < m; i++){
+            incident[next[from[i]]++] = i;
+            incident[next[to[i]]++] = i;
+        }
+
+        boolean[] used = new boolean[m];
+        int[] stack = new int[m + 1];
+        int[] circuit = new int[m + 1];
+        int top = 0;
+        int length = 0;
+        System.arraycopy(start, 0, next, 0, n + 1);
+        stack[top++] = 0;
+        while(top > 0){
+            int v = stack[top - 1];
+            while(next[v] < start[v + 1] && used[incident[next[v]]]){
+                next[v]++;
+            }
+            if(next[v] == start[v + 1]){
+                circuit[length++] = v;
+                top--;
+            }else{
+                int i = incident[next[v]++];
+                used[i] = true;
+                stack[top++] = from[i] == v ? to[i] : from[i];
+            }
+        }
+        return circuit;
+    }
+
+    //Keeps the first visit of every vertex of a circuit
+    static int[] shortcut(int n, int[] circuit){
+        boolean[] seen = new boolean[n];
+        int[] tour = new int[n];
+        int length = 0;
+        for(int v : circuit){
+            if(!seen[v]){
+                seen[v] = true;
+                tour[length++] = v;
+            }
+        }
+        return tour;
+    }
+}
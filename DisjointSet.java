@@ -0,0 +1,96 @@
+/*
+* DisjointSet.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Union-find over the vertices 0 to n-1. Every root keeps the size of its
+* set as a negative number in the parent array, so the smaller set is
+* always linked below the larger one and a set's size is known in O(1).
+* find() halves the path as it goes up instead of recursing, which keeps
+* the stack flat however long a chain gets before it is compressed.
+*
+*/
+
+public class DisjointSet{
+
+    private final int parent[];
+    private int sets;
+
+    /*
+    * Constructor for DisjointSet object
+    *
+    * Arguments:
+    *   n: the number of elements, each starts in a set of its own
+    *
+    */
+    public DisjointSet(int n){
+        parent = new int[n];
+        java.util.Arrays.fill(parent, -1);
+        sets = n;
+    }
+
+    /*
+    * Finds the root of an element's set, pointing every other node on the
+    * way at its grandparent
+    *
+    * Arguments:
+    *   i: the element
+    *
+    * Returns:
+    *   the root of the set
+    *
+    */
+    public int find(int i){
+        while(parent[i] >= 0){
+            int p = parent[i];
+            if(parent[p] >= 0){
+                parent[i] = parent[p];
+            }
+            i = p;
+        }
+        return i;
+    }
+
+    /*
+    * Joins the sets of two elements, the smaller below the larger
+    *
+    * Arguments:
+    *   i: an element of the first set
+    *   j: an element of the second set
+    *
+    * Returns:
+    *   true if the sets were different and have been joined
+    *
+    */
+    public boolean union(int i, int j){
+        int r1 = find(i);
+        int r2 = find(j);
+        if(r1 == r2){
+            return false;
+        }
+        if(parent[r1] > parent[r2]){
+            int t = r1;
+            r1 = r2;
+            r2 = t;
+        }
+        parent[r1] += parent[r2];
+        parent[r2] = r1;
+        sets--;
+        return true;
+    }
+
+    //Checks if two elements are in the same set
+    public boolean connected(int i, int j){
+        return find(i) == find(j);
+    }
+
+    //Returns the number of elements in the set of i
+    public int size(int i){
+        return -parent[find(i)];
+    }
+
+    //Returns the number of sets
+    public int sets(){
+        return sets;
+    }
+}
@@ -5,9 +5,34 @@
 *
 * Contains all the basic methods needed for the graph generation
 * as well as several get methods.
+*
+* Coordinates are kept in two double arrays and the weights in a single
+* double array holding the lower triangle of the symmetric matrix, so
+* the graph needs half the memory of a full matrix and a row scan walks
+* contiguous memory.
+*
+* Generated graphs use the exact Euclidean distance. Graphs loaded from
+* TSPLIB files may use one of its rounded metrics instead (EUC_2D, GEO,
+* ATT), or have no coordinates and only the weights given in the file
+* (EXPLICIT).
+*
+* A lazy graph keeps no weights at all and computes every distance from
+* the coordinates when it is asked for. This lets the approximate solvers
+* work on instances whose matrix would not fit in the heap.
+*
+* The minimum spanning tree is stored as a parent array rooted at 0, and
+* its preorder walk as an int array. The walk uses an explicit stack, so
+* deep trees cannot overflow the stack.
+*
+* All state belongs to the instance, so separate graphs can be used from
+* separate threads. A graph that is no longer modified may also be read
+* by several threads at once. The solvers store their working state (the
+* MST, the edge list) in the graph, so a graph takes part in one
+* TspSolver.solve at a time; beginSolve refuses a second one.
 * 
 */
 
+import java.util.Arrays;
 import java.util.Random;
 import java.lang.Math;
 import java.text.*;
@@ -15,18 +40,40 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Graph{
 
-    private LinkedHashMap<Integer,Integer> coords;
-    private double adjacencyMatrix[][];
-    private static int vertices;
+    private double xs[];
+    private double ys[];
+    private int metric;
+    private double weights[];
+    private int vertices;
     DecimalFormat df = new DecimalFormat("0.00");
-    private static boolean visited[];
     private ArrayList<Edge> edges;
-    private static int edgeCount;
-    private boolean[][] mst;
-    private LinkedHashMap<Integer, Integer> traversal;
+    private int edgeCount;
+    private int mstParent[];
+    private boolean inMst[];
+    private int childStart[];
+    private int children[];
+    private int order[];
+    private boolean lazy;
+
+    //Held by the solve that is using the graph, see beginSolve
+    private final AtomicBoolean solving = new AtomicBoolean();
+
+    //Graphs with more nodes than this are built lazily by the solvers
+    public static final int MATRIX_LIMIT = 10000;
+
+    //Largest graph whose n(n-1)/2 pairs fit in one Java array
+    public static final int TRIANGLE_LIMIT = 65536;
+
+    //How weights follow from the coordinates, the last four as defined by TSPLIB
+    public static final int EUCLIDEAN = 0;
+    public static final int EUC_2D = 1;
+    public static final int GEO = 2;
+    public static final int ATT = 3;
+    public static final int EXPLICIT = 4;
 
     /*
     * Constructs a new graph
@@ -36,13 +83,148 @@ public class Graph{
     *
     */
     public Graph(int n){
-        adjacencyMatrix = new double[n][n];
-        coords = new LinkedHashMap<Integer,Integer>(n);
+        this(n, false);
+    }
+
+    /*
+    * Constructs a new graph, optionally without a weight matrix
+    *
+    * Arguments:
+    *   n: the number of nodes in the graph
+    *   lazy: true to compute weights from the coordinates on demand
+    *
+    */
+    public Graph(int n, boolean lazy){
+        this(new double[n], new double[n], EUCLIDEAN, lazy, n);
+    }
+
+    /*
+    * Constructs a graph that keeps the given coordinate arrays as its own
+    *
+    * Arguments:
+    *   x: the x coordinates, owned by the graph from now on
+    *   y: the y coordinates, owned by the graph from now on
+    *   metric: EUCLIDEAN, EUC_2D, GEO or ATT
+    *   lazy: true to compute weights from the coordinates on demand
+    *   n: the number of nodes, the length of both arrays
+    *
+    */
+    private Graph(double[] x, double[] y, int metric, boolean lazy, int n){
+        if(y.length != n || x.length != n)
+            throw new IllegalArgumentException("x and y must have the same length");
+        if(metric < EUCLIDEAN || metric > ATT)
+            throw new IllegalArgumentException("metric must be EUCLIDEAN, EUC_2D, GEO or ATT");
+        if(!lazy && n > TRIANGLE_LIMIT)
+            throw new IllegalArgumentException("a weight matrix holds at most " + TRIANGLE_LIMIT
+                    + " vertices, use a lazy graph for " + n);
+        xs = x;
+        ys = y;
+        this.metric = metric;
+        this.lazy = lazy;
+        if(!lazy)
+            weights = new double[(int) ((long) n * (n - 1) / 2)];
         vertices = n;
         edges = new ArrayList<Edge>();
         edgeCount = 0;
-        traversal = new LinkedHashMap<Integer,Integer>();
-        mst = new boolean[n][n];
+        order = new int[0];
+        mstParent = new int[n];
+        inMst = new boolean[n];
+        Arrays.fill(mstParent, -1);
+    }
+
+    /*
+    * Constructs a graph over the given points. The weights of a graph that
+    * is not lazy still have to be filled in with generateAM.
+    *
+    * Arguments:
+    *   x: the x coordinate of every vertex
+    *   y: the y coordinate of every vertex
+    *   lazy: true to compute weights from the coordinates on demand
+    *
+    */
+    public Graph(double[] x, double[] y, boolean lazy){
+        this(x, y, EUCLIDEAN, lazy);
+    }
+
+    /*
+    * Constructs a graph over the given points with the given metric
+    *
+    * Arguments:
+    *   x: the x coordinate of every vertex, the latitude for GEO
+    *   y: the y coordinate of every vertex, the longitude for GEO
+    *   metric: EUCLIDEAN, EUC_2D, GEO or ATT
+    *   lazy: true to compute weights from the coordinates on demand
+    *
+    */
+    public Graph(double[] x, double[] y, int metric, boolean lazy){
+        this(x.clone(), y.clone(), metric, lazy, x.length);
+    }
+
+    /*
+    * Same as the constructor with a metric, but the graph takes the arrays
+    * over instead of copying them. For loaders that fill arrays only to
+    * hand them to the graph; the caller must not change them afterwards.
+    *
+    * Arguments:
+    *   x: the x coordinate of every vertex, the latitude for GEO
+    *   y: the y coordinate of every vertex, the longitude for GEO
+    *   metric: EUCLIDEAN, EUC_2D, GEO or ATT
+    *   lazy: true to compute weights from the coordinates on demand
+    *
+    * Returns:
+    *   the graph, holding x and y themselves
+    *
+    */
+    static Graph wrap(double[] x, double[] y, int metric, boolean lazy){
+        return new Graph(x, y, metric, lazy, x.length);
+    }
+
+    /*
+    * Constructs a graph whose weights are given rather than computed, to be
+    * filled in with addEdgeWeight. It has no coordinates, so the solvers
+    * that index coordinates in a k-d tree cannot use it.
+    *
+    * Arguments:
+    *   n: the number of nodes in the graph
+    *
+    * Returns:
+    *   the graph, all weights 0
+    *
+    */
+    public static Graph explicit(int n){
+        Graph g = new Graph(n);
+        g.metric = EXPLICIT;
+        return g;
+    }
+
+    //returns the metric the weights follow
+    public int getMetric(){
+        return metric;
+    }
+
+    //returns false if the weights were given without coordinates
+    public boolean hasCoordinates(){
+        return metric != EXPLICIT;
+    }
+
+    //returns true if weights are computed from the coordinates on demand
+    public boolean isLazy(){
+        return lazy;
+    }
+
+    /*
+    * Claims the graph for a solve. Each TspSolver.solve calls this first and
+    * endSolve when done, so two solves that would overwrite each other's
+    * MST or edge list fail fast with an IllegalStateException instead.
+    */
+    public void beginSolve(){
+        if(!solving.compareAndSet(false, true))
+            throw new IllegalStateException("the graph is already being solved, concurrent solves need a graph each");
+    }
+
+    //Releases the graph claimed by beginSolve
+    public void endSolve(){
+        solving.set(false);
     }
 
     //returns the number of nodes in the graph
@@ -50,14 +232,48 @@ public class Graph{
         return vertices;
     }
 
-    //returns the hashmap containing the coordinates
-    public LinkedHashMap<Integer,Integer> getCoords(){
-        return coords;
+    //returns the x coordinate of a vertex
+    public double getX(int v){
+        return xs[v];
+    }
+
+    //returns the y coordinate of a vertex
+    public double getY(int v){
+        return ys[v];
     }
 
-    //returns the adjacency matrix
+    //returns a full copy of the adjacency matrix, meant for printing and small graphs
     public double[][] getAM(){
-        return adjacencyMatrix;
+        double am[][] = new double[vertices][vertices];
+        for(int row = 0; row < vertices; row++){
+            for(int col = 0; col < row; col++){
+                double weight = getWeight(row, col);
+                am[row][col] = weight;
+                am[col][row] = weight;
+            }
+        }
+        return am;
+    }
+
+    /*
+    * Position of an edge in the lower triangle weight array. Row i starts
+    * after the i * (i - 1) / 2 entries of the rows above it.
+    *
+    * Arguments:
+    *   row: one vertex of the edge
+    *   col: the other vertex, must differ from row
+    *
+    * Returns:
+    *   the index of the edge's weight
+    * 
+    */
+    private static int index(int row, int col){
+        if(row < col){
+            int t = row;
+            row = col;
+            col = t;
+        }
+        return (int) ((long) row * (row - 1) / 2) + col;
     }
 
     /*
@@ -72,7 +288,11 @@ public class Graph{
     * 
     */
     public double getWeight(int row, int col) {
-        return adjacencyMatrix[row][col];
+        if(row == col)
+            return 0;
+        if(!lazy)
+            return weights[index(row, col)];
+        return distance(row, col);
     }
 
     /*
@@ -86,17 +306,23 @@ public class Graph{
         
         Random xGen = new Random(seed);
         Random yGen = new Random(2 * seed);
+        boolean usedX[] = new boolean[vertices];
+        int count = 0;
 
-        while(coords.size() < vertices){
+        while(count < vertices){
             
             int x = xGen.nextInt(vertices);
             int y = yGen.nextInt(vertices);
 
-            if(coords.containsKey(x))
+            if(usedX[x])
                 continue;
-            else
-                coords.put(x,y);
+            usedX[x] = true;
+            xs[count] = x;
+            ys[count] = y;
+            count++;
         }
+        if(metric == EXPLICIT)
+            metric = EUCLIDEAN;
     }
 
     //Generates the edges for the graph
@@ -108,28 +334,28 @@ public class Graph{
         }
     }
 
-    //generates the adjacency matrix
+    //generates the adjacency matrix, computing each pair once. No-op for lazy and explicit graphs
     public void generateAM(){
-        ArrayList<Map.Entry<Integer, Integer>> entries =
-        new ArrayList<Map.Entry<Integer, Integer>>(coords.entrySet());
-        
-        for (int x = 0; x < entries.size(); x++) {
-            for (int y = 0; y < entries.size(); y++) {
-                double weight = distance(entries.get(x), entries.get(y));
-                adjacencyMatrix[x][y] = weight;
-                adjacencyMatrix[y][x] = weight;
+        if(lazy || metric == EXPLICIT)
+            return;
+        int i = 0;
+        for (int x = 0; x < vertices; x++) {
+            for (int y = 0; y < x; y++) {
+                weights[i++] = distance(x, y);
             }
         }
     }
 
     //prints out all the vertices
     public void printVertices(){
+        if(metric == EXPLICIT){
+            System.out.println("X-Y Coordinates: none, the weights were given explicitly\n");
+            return;
+        }
         System.out.println("X-Y Coordinates:");
 
-        int index = 0;
-        for (Map.Entry<Integer, Integer> entry : coords.entrySet()) {
-            System.out.format("v%d: (%d,%d) ", index, entry.getKey(), entry.getValue());
-            index++;
+        for (int index = 0; index < vertices; index++) {
+            System.out.format("v%d: (%s,%s) ", index, coordinate(xs[index]), coordinate(ys[index]));
         }
 
         System.out.println("\n");
@@ -145,14 +371,22 @@ public class Graph{
         for(int x = 0; x < vertices; x++){
             System.out.printf("%d   ", x);
             for(int y = 0; y < vertices; y++){
-                System.out.printf(df.format(adjacencyMatrix[x][y]) + "   ");
+                System.out.printf(df.format(getWeight(x, y)) + "   ");
             }
             System.out.println("\n");
         }
     }
 
+    //Formats a coordinate, whole numbers without decimals
+    private String coordinate(double c){
+        if(c == Math.rint(c) && Math.abs(c) < 1e15)
+            return Long.toString((long) c);
+        return df.format(c);
+    }
+
     /*
-    * Gets the distance between two vertices
+    * Gets the distance between two vertices. EUCLIDEAN is the exact
+    * distance, the TSPLIB metrics round as the TSPLIB format prescribes.
     *
     * Arguments:
     *   node1: the first vertex
@@ -162,15 +396,53 @@ public class Graph{
     *   the distance between node1 and node2
     * 
     */
-    private static double distance(Map.Entry<Integer,Integer> node1, Map.Entry<Integer,Integer> node2) {
-    
-        int x1 = node1.getKey();
-        int x2 = node2.getKey();
-        int y1 = node1.getValue();
-        int y2 = node2.getValue();
-        double xdif = (double) x1 - x2;
-        double ydif = (double) y1 - y2;
-        return Math.sqrt(xdif * xdif + ydif * ydif);
+    private double distance(int node1, int node2) {
+        double xdif = xs[node1] - xs[node2];
+        double ydif = ys[node1] - ys[node2];
+        switch (metric) {
+            case EUC_2D:
+                return (int) (Math.sqrt(xdif * xdif + ydif * ydif) + 0.5);
+            case ATT:
+                double r = Math.sqrt((xdif * xdif + ydif * ydif) / 10.0);
+                int t = (int) (r + 0.5);
+                return t < r ? t + 1 : t;
+            case GEO:
+                return geoDistance(node1, node2);
+            case EXPLICIT:
+                throw new IllegalStateException("an explicit graph has no coordinates");
+            default:
+                return Math.sqrt(xdif * xdif + ydif * ydif);
+        }
+    }
+
+    /*
+    * Distance on an idealized earth in kilometers, the coordinates being
+    * latitude and longitude in DDD.MM degrees and minutes
+    *
+    * Arguments:
+    *   node1: the first vertex
+    *   node2: the second vertex
+    *
+    * Returns:
+    *   the distance between node1 and node2, as a whole number
+    * 
+    */
+    private double geoDistance(int node1, int node2) {
+        double lat1 = radians(xs[node1]);
+        double lon1 = radians(ys[node1]);
+        double lat2 = radians(xs[node2]);
+        double lon2 = radians(ys[node2]);
+        double q1 = Math.cos(lon1 - lon2);
+        double q2 = Math.cos(lat1 - lat2);
+        double q3 = Math.cos(lat1 + lat2);
+        return (int) (6378.388 * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
+    }
+
+    //Converts DDD.MM to radians with TSPLIB's value of pi
+    private static double radians(double c) {
+        int degrees = (int) c;
+        double minutes = c - degrees;
+        return 3.141592 * (degrees + 5.0 * minutes / 3.0) / 180.0;
     }
 
     /*
@@ -183,8 +455,9 @@ public class Graph{
     * 
     */
     public void addEdgeWeight(int x, int y, double weight) {
-        adjacencyMatrix[x][y] = weight;
-        adjacencyMatrix[y][x] = weight;
+        if(lazy)
+            throw new IllegalStateException("weights of a lazy graph come from its coordinates");
+        weights[index(x, y)] = weight;
     }
 
     /*
@@ -224,11 +497,9 @@ public class Graph{
 
     //Sets all entries of the adjacency matrix to 0
     public void resetAM() {
-        for (int row = 0; row < adjacencyMatrix.length; row++) {
-            for (int col = 0; col < adjacencyMatrix.length; col++) {
-                adjacencyMatrix[row][col] = 0.0;
-            }
-        }
+        if(lazy)
+            throw new IllegalStateException("weights of a lazy graph come from its coordinates");
+        Arrays.fill(weights, 0.0);
     }
 
     /*
@@ -247,8 +518,8 @@ public class Graph{
     */
     public boolean invalidEdge(int vertex) {
         int count = 0;
-        for (int i = 0; i < adjacencyMatrix[vertex].length; i++){
-            double edge = adjacencyMatrix[vertex][i];
+        for (int i = 0; i < vertices; i++){
+            double edge = getWeight(vertex, i);
             if (edge > 0)
                 count++;
         }
@@ -264,78 +535,82 @@ public class Graph{
     * 
     */
     public boolean lastEdge() {
-        return getEdgeCount() + 1 >= adjacencyMatrix.length;
-    }
-
-    /*
-    * Initializes the variables needed for dfs then calls dfs starting
-    * and ending at node 0
-    *
-    */
-    public ArrayList<Integer> dfsInit() {
-        visited = new boolean[adjacencyMatrix.length];
-        for (int i = 0; i < adjacencyMatrix.length; i++)
-            visited[i] = false;
-        ArrayList<Integer> path = new ArrayList<Integer>();
-        path.add(0);
-        dfs(0, path);
-        path.add(0);
-        return path;
+        return getEdgeCount() + 1 >= vertices;
     }
 
     /*
-    * Simple depth first search
-    *
-    * Arguments:
-    *   node: the starting node
-    *   path: the current path
+    * Finds the total distance traveled for the problem
     *
     * Returns:
-    *   the path traversed
+    *   total distance traveled by the salesman   
     * 
     */
-    private ArrayList<Integer> dfs(int node, ArrayList<Integer> path) {
-        for (int i = 1; i < adjacencyMatrix.length; i++) {
-            if (adjacencyMatrix[node][i] > 0 && !visited[i]) {
-                path.add(i);
-                visited[i] = true;
-                dfs(i, path);
-            }
+    public double edgeDistance() {
+        double distance = 0;
+        for (int i = 0; i < edges.size(); i++){
+            Edge e = edges.get(i);
+            distance += e.getWeight();
         }
-        return path;
+        return distance;
     }
 
     /*
-    * Finds the total distance traveled for the problem
+    * Finds the length of a closed tour
+    *
+    * Arguments:
+    *   tour: every vertex once, in the order visited
     *
     * Returns:
-    *   total distance traveled by the salesman   
+    *   the total distance including the edge back to the first vertex
     * 
     */
-    public double edgeDistance() {
+    public double tourDistance(int[] tour) {
         double distance = 0;
-        for (int i = 0; i < edges.size(); i++){
-            Edge e = edges.get(i);
-            distance += e.getWeight();
+        for (int i = 0; i < tour.length - 1; i++) {
+            distance += getWeight(tour[i], tour[i+1]);
         }
+        if (tour.length > 1)
+            distance += getWeight(tour[tour.length-1], tour[0]);
         return distance;
     }
 
     //Returns a list of the current neighbors
     public ArrayList<Edge> getNeighbors(int k, Graph g){
         ArrayList<Edge> e = new ArrayList<Edge>();
-        for (int i = 0; i < adjacencyMatrix.length; i++) {
-            if (adjacencyMatrix[k][i] > 0) {
+        for (int i = 0; i < vertices; i++) {
+            if (getWeight(k, i) > 0) {
                 e.add(new Edge(i, k, g));
             }
         }
         return e;
     }
 
-    //Add an edge to the minimum spanning tree
+    //Add an edge to the minimum spanning tree, e.column becomes the parent of e.row
     public void addMstEdge(Edge e){
-        mst[e.row][e.column] = true;
-        mst[e.column][e.row] = true;
+        mstParent[e.row] = e.column;
+        inMst[e.row] = true;
+        inMst[e.column] = true;
+    }
+
+    /*
+    * Replaces the minimum spanning tree with the given parent array
+    *
+    * Arguments:
+    *   parent: the parent of each vertex, -1 for the root vertex 0
+    * 
+    */
+    public void setMstParents(int[] parent){
+        mstParent = parent;
+        for(int i = 0; i < vertices; i++){
+            inMst[i] = parent[i] != -1;
+            if(parent[i] != -1)
+                inMst[parent[i]] = true;
+        }
+    }
+
+    //Returns the parent of each vertex in the MST, -1 for the root
+    public int[] getMstParents(){
+        return mstParent;
     }
 
     /*
@@ -350,59 +625,84 @@ public class Graph{
     * 
     */
     public boolean validMstNode(int n){
-        for(int i = 0; i < mst.length; i++){
-            if(mst[n][i]){
-                return true;
-            }
-        }
-        return false;
-    }
-
-    public LinkedHashMap<Integer, Integer> preorder(){
-        preorder(0, -1);
-        return traversal;
+        return inMst[n];
     }
 
-    //Recursively processes the given node and all it's children in sorted order
-    public void preorder(int n, int i){
-        traversal.put(n, i);
-        for(Integer neighbor : getMstNeighbors(n)){
-            preorder(neighbor, n);
+    /*
+    * Walks the MST in preorder from vertex 0, children in increasing order,
+    * with an explicit stack
+    *
+    * Returns:
+    *   the vertices in preorder, which is the tour of the MST heuristic
+    * 
+    */
+    public int[] preorder(){
+        indexChildren();
+        order = new int[vertices];
+        int stack[] = new int[vertices];
+        int length = 0;
+        int top = 0;
+        if(vertices > 0)
+            stack[top++] = 0;
+        while(top > 0){
+            int v = stack[--top];
+            order[length++] = v;
+            //pushed in reverse so the lowest child comes off first
+            for(int i = childStart[v + 1] - 1; i >= childStart[v]; i--){
+                stack[top++] = children[i];
+            }
         }
+        return order;
     }
 
-    //Get all the neighbors of the current MST node
-    private ArrayList<Integer> getMstNeighbors(int n){
-        ArrayList<Integer> neighbors = new ArrayList<Integer>();
-        for (int i = 1; i < adjacencyMatrix.length; i++) {
-            if (mst[n][i] && !traversal.containsKey(i)) {
-                neighbors.add(i);
-            }
+    /*
+    * Groups the MST children of every vertex into one array, in increasing
+    * order, so that the children of v are children[childStart[v]] up to
+    * children[childStart[v + 1] - 1]
+    *
+    */
+    private void indexChildren(){
+        childStart = new int[vertices + 1];
+        children = new int[Math.max(vertices - 1, 0)];
+        for(int i = 0; i < vertices; i++){
+            if(mstParent[i] != -1)
+                childStart[mstParent[i] + 1]++;
+        }
+        for(int i = 0; i < vertices; i++){
+            childStart[i + 1] += childStart[i];
+        }
+        int next[] = Arrays.copyOf(childStart, vertices);
+        for(int i = 0; i < vertices; i++){
+            if(mstParent[i] != -1)
+                children[next[mstParent[i]]++] = i;
         }
-        return neighbors;
     }
 
-    //Get the traversal
-    public LinkedHashMap<Integer, Integer> getTraversal(){
-        return traversal;
+    //Returns the preorder of the last MST traversal
+    public int[] getPreorder(){
+        return order;
     }
 
     //Returns total cost of MST
     public double cost(){
         double c = 0;
-        for(int i = 0; i < adjacencyMatrix.length; i++){
-            for(int j = 0; j < i; j++){
-                //check if edge is in MST
-                if(mst[i][j]){
-                    c += adjacencyMatrix[i][j];
-                }
+        for(int i = 0; i < vertices; i++){
+            if(mstParent[i] != -1){
+                c += getWeight(i, mstParent[i]);
             }
         }
         return c;
     }
 
-    //Returns the MST
+    //Returns the MST as an adjacency matrix, meant for printing and small graphs
     public boolean[][] getMst(){
+        boolean mst[][] = new boolean[vertices][vertices];
+        for(int i = 0; i < vertices; i++){
+            if(mstParent[i] != -1){
+                mst[i][mstParent[i]] = true;
+                mst[mstParent[i]][i] = true;
+            }
+        }
         return mst;
     }
 
@@ -414,13 +714,7 @@ public class Graph{
     * 
     */
     public double traversalDistance() {
-        double distance = 0;
-        ArrayList<Integer> list = new ArrayList(traversal.keySet());
-        for (int i = 0; i < list.size()-1; i++) {
-            distance += adjacencyMatrix[list.get(i)][list.get(i+1)];
-        }
-        distance += adjacencyMatrix[list.get(0)][list.get(list.size()-1)];
-        return distance;
+        return tourDistance(order);
     }
     public static void main(String args[]){}
 }
\ No newline at end of file
@@ -8,56 +8,390 @@
 * of cities is less than or equal to 10, a list of the x, y coordinates,
 * both adjacency matrices, as well as a list of the edges from the greedy
 * graph that were used to compute the solution.
+*
+* A TSPLIB or CSV file (see TspLoader) may be given in place of the
+* number of cities and the seed.
+*
+* An optional third argument selects how the candidate edges are stored:
+*   list:   an ArrayList of Edge objects sorted by Quicksort (default)
+*   packed: primitive arrays of 12 bytes per edge sorted in place
+*   radix:  packed edges ordered by a linear time radix sort
+*   candidates [k]: only the edges to the k nearest neighbors of each city
+*                   (default 10), found with a k-d tree
 * 
 */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.text.DecimalFormat;
 
-public class GreedyTSP {
+public class GreedyTSP implements TspSolver {
+
+    private final String mode;
+    private final int k;
+
+    //Creates a solver using the Edge list (list mode)
+    public GreedyTSP(){
+        this("list", 10);
+    }
+
+    /*
+    * Constructor for the GreedyTSP solver
+    *
+    * Arguments:
+    *   mode: list, packed, radix or candidates
+    *   k: the number of nearest neighbors per city in candidates mode
+    *
+    */
+    public GreedyTSP(String mode, int k){
+        if(!mode.equals("list") && !mode.equals("packed") && !mode.equals("radix")
+                && !mode.equals("candidates")){
+            throw new IllegalArgumentException("mode must be one of: list, packed, radix, candidates");
+        }
+        if(k <= 0){
+            throw new IllegalArgumentException("k must be greater than 0");
+        }
+        this.mode = mode;
+        this.k = k;
+    }
+
+    public String name(){
+        return "greedy";
+    }
+
+    /*
+    * Builds the greedy tour. In list mode the edge list of the graph is
+    * generated first if it is empty.
+    *
+    * Arguments:
+    *   original: the graph to build a tour for
+    *
+    * Returns:
+    *   the tour with the phases edges and greedy
+    *
+    */
+    public TspResult solve(Graph original){
+        original.beginSolve();
+        try{
+            long start = System.nanoTime();
+            if(mode.equals("list") && original.getEdges().isEmpty()){
+                original.generateEdges(original);
+            }
+            long edgesDone = System.nanoTime();
+            int[] tour;
+            if(mode.equals("candidates")){
+                tour = greedyCandidates(original, k);
+            }else if(mode.equals("list")){
+                tour = greedy(original);
+            }else{
+                tour = greedyPacked(original, mode.equals("radix"));
+            }
+            long greedyDone = System.nanoTime();
+            return new TspResult(tour, original.tourDistance(tour),
+                    new String[]{"edges", "greedy"},
+                    new long[]{edgesDone - start, greedyDone - edgesDone});
+        }finally{
+            original.endSolve();
+        }
+    }
 
-    private static int nodes;
-    private static int seed;
-    static DecimalFormat df = new DecimalFormat("0.00");
+    /*
+    * Builds a graph holding only the edges of a tour, for printing
+    *
+    * Arguments:
+    *   original: the graph the tour belongs to
+    *   tour: the vertices in tour order
+    *
+    * Returns:
+    *   a graph with the tour edges in its matrix and edge list
+    * 
+    */
+    public static Graph greedyGraph(Graph original, int[] tour){
+        int nodes = tour.length;
+        Graph greed = new Graph(nodes);
+        for (int i = 0; i < nodes && nodes > 1; i++) {
+            int a = tour[i];
+            int b = tour[(i + 1) % nodes];
+            if (nodes == 2 && i == 1)
+                break;
+            greed.addEdge(new Edge(Math.max(a, b), Math.min(a, b), original));
+            greed.addEdgeWeight(a, b, original.getWeight(a, b));
+        }
+        return greed;
+    }
 
 
     /*
     * Generates an approximately optimal tour by continually choosing an edge that has the
-    * lowest cost of those edges that remain/
+    * lowest cost of those edges that remain
+    *
+    * Arguments:
+    *   original: the graph to build a tour for, its edge list must be generated
+    *
+    * Returns:
+    *   the tour, starting at vertex 0
     * 
     */
-    public static void greedy(Graph greed, Graph original){
+    public static int[] greedy(Graph original){
 
         ArrayList<Edge> edges = Quicksort.quicksort(original.getEdges());
-        PathCompression p = new PathCompression(nodes);
+        Selection s = new Selection(original.numberOfNodes());
 
-        for (int i = 0; i < edges.size(); i++){
+        // End loop if enough edges have been added
+        for (int i = 0; i < edges.size() && !s.complete(); i++){
             Edge e = edges.get(i);
-            // End loop if enough edges have been added
-            if (greed.getEdgeCount() >= nodes) {
-                break;
-            } else {
-                int r1 = p.find(e.row);
-                int r2 = p.find(e.column);
-                // Check for invalid edges (too many edges per vertex) or
-                // check if the edge creates a cycle, but is NOT the final edge
-                if ((greed.invalidEdge(e.row) || greed.invalidEdge(e.column)) ||
-                            !greed.lastEdge() && PathCompression.createsCycle(r1, r2)) {
-                    continue;
-                } else {
-                    //Union subtrees and update greedy graph.
-                    p.union(r1, r2);
-                    greed.addEdge(e);
-                    greed.addEdgeWeight(e.row, e.column, original.getWeight(e.row, e.column));
-                }
+            s.offer(e.row, e.column);
+        }
+        return s.tour();
+    }
+
+    /*
+    * Same as greedy(), but the candidate edges are kept in primitive arrays
+    * and sorted in place, so no Edge objects are created. Produces the
+    * identical tour.
+    *
+    * Arguments:
+    *   original: the graph to build a tour for
+    *   radix: true to use the radix sort instead of Quicksort
+    *
+    * Returns:
+    *   the tour, starting at vertex 0
+    * 
+    */
+    public static int[] greedyPacked(Graph original, boolean radix){
+
+        PackedEdges edges = new PackedEdges(original);
+        if(radix){
+            edges.radixSort();
+        }else{
+            edges.sort();
+        }
+        Selection s = new Selection(original.numberOfNodes());
+
+        // End loop if enough edges have been added
+        for (int i = 0; i < edges.size() && !s.complete(); i++){
+            s.offer(edges.row(i), edges.column(i));
+        }
+        return s.tour();
+    }
+
+    /*
+    * The state of a greedy selection: the degree of every vertex, the
+    * chosen edges as two neighbor slots per vertex, and the union-find over
+    * the path fragments. Deciding on an edge takes two finds and no scan,
+    * so the whole selection is O(m a(n)) after the sort.
+    * 
+    */
+    private static final class Selection {
+        private final int n;
+        private final byte[] degree;
+        private final int[] adjacent;
+        private final DisjointSet sets;
+        private int added;
+
+        Selection(int n){
+            this.n = n;
+            degree = new byte[n];
+            adjacent = new int[2 * n];
+            Arrays.fill(adjacent, -1);
+            sets = new DisjointSet(n);
+        }
+
+        //Checks if every vertex has its two tour edges
+        boolean complete(){
+            return added >= n;
+        }
+
+        /*
+        * Adds the next edge in weight order if both vertices have a free
+        * slot and the edge joins two fragments. Only the final edge may
+        * close the cycle.
+        *
+        * Arguments:
+        *   row: the first vertex of the edge
+        *   column: the second vertex of the edge
+        * 
+        */
+        void offer(int row, int column){
+            if (degree[row] >= 2 || degree[column] >= 2)
+                return;
+            //Union subtrees, or close the cycle with the final edge
+            if (!sets.union(row, column) && added + 1 < n)
+                return;
+            link(adjacent, degree, row, column);
+            added++;
+        }
+
+        //Returns the tour, leaving 0 toward its lower numbered neighbor like a depth first walk would
+        int[] tour(){
+            if (n > 1 && adjacent[1] != -1 && adjacent[1] < adjacent[0]) {
+                int first = adjacent[1];
+                adjacent[1] = adjacent[0];
+                adjacent[0] = first;
             }
+            return walk(adjacent, n);
         }
     }
-    
+
+    /*
+    * Greedy edge selection restricted to candidate edges. Each city only
+    * offers the edges to its k nearest neighbors, so the sort handles n * k
+    * edges instead of n^2 / 2. Vertex degrees are kept in an array and the
+    * chosen edges in an adjacency array, so nothing here is quadratic. When
+    * the candidates run out the remaining path fragments are chained by
+    * joinFragments.
+    *
+    * Arguments:
+    *   original: the graph to build a tour for
+    *   k: the number of nearest neighbors per city
+    *
+    * Returns:
+    *   the tour, starting at vertex 0
+    * 
+    */
+    public static int[] greedyCandidates(Graph original, int k){
+        int n = original.numberOfNodes();
+        if (n <= 2) {
+            int[] tour = new int[n];
+            for (int i = 0; i < n; i++)
+                tour[i] = i;
+            return tour;
+        }
+        k = Math.min(k, n - 1);
+        KdTree tree = new KdTree(original);
+        int[] near = tree.neighborLists(k);
+
+        // Each pair once, even if both cities list each other
+        PackedEdges edges = new PackedEdges(original, n * k);
+        for (int i = 0; i < n; i++) {
+            for (int t = i * k; t < i * k + k; t++) {
+                int j = near[t];
+                if (j > i || !contains(near, j * k, k, i))
+                    edges.add(Math.max(i, j), Math.min(i, j));
+            }
+        }
+        edges.sort();
+
+        byte[] degree = new byte[n];
+        int[] adjacent = new int[2 * n];
+        Arrays.fill(adjacent, -1);
+        DisjointSet sets = new DisjointSet(n);
+        int added = 0;
+        for (int i = 0; i < edges.size() && added < n - 1; i++) {
+            int row = edges.row(i);
+            int column = edges.column(i);
+            if (degree[row] < 2 && degree[column] < 2 && sets.union(row, column)) {
+                link(adjacent, degree, row, column);
+                added++;
+            }
+        }
+        joinFragments(tree, adjacent, degree);
+        return walk(adjacent, n);
+    }
+
+    //Checks if value appears in list[from] to list[from + count - 1]
+    private static boolean contains(int[] list, int from, int count, int value){
+        for (int i = from; i < from + count; i++) {
+            if (list[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    //Records an edge between two vertices with a free slot each
+    private static void link(int[] adjacent, byte[] degree, int a, int b){
+        adjacent[2 * a + degree[a]++] = b;
+        adjacent[2 * b + degree[b]++] = a;
+    }
+
+    /*
+    * Turns the path fragments left by the greedy selection into a tour.
+    * Starting from one fragment, the free end of the growing path is
+    * repeatedly joined to the nearest free endpoint of another fragment,
+    * whose far end then becomes the new free end. Finally the path is
+    * closed. Endpoints are looked up in the k-d tree, which drops each one
+    * as soon as it is used.
+    *
+    * Arguments:
+    *   tree: a k-d tree over all vertices
+    *   adjacent: two neighbor slots per vertex, -1 if unused
+    *   degree: the number of used slots per vertex
+    * 
+    */
+    private static void joinFragments(KdTree tree, int[] adjacent, byte[] degree){
+        int n = degree.length;
+        boolean[] live = new boolean[n];
+        int[] other = new int[n];
+        Arrays.fill(other, -1);
+        int first = -1;
+        for (int v = 0; v < n; v++) {
+            if (degree[v] == 2)
+                continue;
+            live[v] = true;
+            if (first == -1)
+                first = v;
+            if (other[v] != -1)
+                continue;
+            // walk to the far end of the fragment
+            int prev = -1;
+            int cur = v;
+            while (degree[cur] == 2 || cur == v && degree[cur] == 1) {
+                int next = adjacent[2 * cur] != prev ? adjacent[2 * cur] : adjacent[2 * cur + 1];
+                prev = cur;
+                cur = next;
+                if (degree[cur] == 1)
+                    break;
+            }
+            other[v] = cur;
+            other[cur] = v;
+        }
+        if (first == -1)
+            return;
+
+        tree.setLive(live);
+        int end = other[first];
+        tree.remove(first);
+        tree.remove(end);
+        while (true) {
+            int c = tree.nearestLive(end);
+            if (c == -1)
+                break;
+            link(adjacent, degree, end, c);
+            tree.remove(c);
+            end = other[c];
+            tree.remove(end);
+        }
+        link(adjacent, degree, end, first);
+    }
+
+    /*
+    * Follows the adjacency array around the tour
+    *
+    * Arguments:
+    *   adjacent: two neighbor slots per vertex
+    *   n: the number of vertices
+    *
+    * Returns:
+    *   the vertices in tour order, starting at vertex 0
+    * 
+    */
+    static int[] walk(int[] adjacent, int n){
+        int[] tour = new int[n];
+        int prev = -1;
+        int cur = 0;
+        for (int i = 0; i < n; i++) {
+            tour[i] = cur;
+            int next = adjacent[2 * cur] != prev ? adjacent[2 * cur] : adjacent[2 * cur + 1];
+            prev = cur;
+            cur = next;
+        }
+        return tour;
+    }
+
     /**
     * Method: isInt
     *
@@ -81,42 +415,74 @@ public class GreedyTSP {
     }
 
     public static void main(String[] args) {
+        DecimalFormat df = new DecimalFormat("0.00");
+        //A file name in place of nodes and seed loads the instance from the file
+        boolean fromFile = args.length > 0 && !isInt(args[0]);
+        int given = fromFile ? 1 : 2;
+        //A trailing 2opt or oropt improves the constructed tour afterwards
+        String improve = args.length > given ? args[args.length - 1] : "";
+        boolean localSearch = improve.equals("2opt") || improve.equals("oropt");
+        if(localSearch){
+            args = Arrays.copyOf(args, args.length - 1);
+        }
         //Check input
-        if(args.length != 2){
-            System.out.println("Usage: java GreedyTSPnodes seed");
+        if(args.length < given || args.length > given + 2){
+            System.out.println("Usage: java GreedyTSP (nodes seed | file) [list|packed|radix|candidates [k]] [2opt|oropt]");
             System.exit(0);
         }
-        if(!isInt(args[0]) || !isInt(args[1])){
+        if(!fromFile && !isInt(args[1]) || args.length == given + 2 && !isInt(args[given + 1])){
             System.out.println("Command line args must be integers");
             System.exit(0);
         }
         
-        nodes = (int) Integer.parseInt(args[0]);
-        seed = (int) Integer.parseInt(args[1]);
+        String mode = args.length > given ? args[given] : "list";
+        int k = args.length == given + 2 ? Integer.parseInt(args[given + 1]) : 10;
         
-        if(nodes <= 0){
-            System.out.println("Number of vertices must be greater than 0");
+        if(!mode.equals("list") && !mode.equals("packed") && !mode.equals("radix")
+                && !mode.equals("candidates")){
+            System.out.println("Mode must be one of: list, packed, radix, candidates");
+            System.exit(0);
+        }
+        if(args.length == given + 2 && (!mode.equals("candidates") || k <= 0)){
+            System.out.println("Only candidates takes a neighbor count, which must be greater than 0");
             System.exit(0);
         }
 
-        Graph original = new Graph(nodes);
-        original.generateCoords((long)seed);
-        original.generateAM();
-        original.generateEdges(original);
-        Graph greed = new Graph(nodes);
-        greed.resetAM();
-        //Begin timer and algorithm
-        long time = System.currentTimeMillis();
-        greedy(greed, original);
-        long runtime = System.currentTimeMillis() - time;
+        Graph original;
+        if(fromFile){
+            original = TspLoader.loadOrExit(args[0]);
+        }else{
+            int nodes = Integer.parseInt(args[0]);
+            int seed = Integer.parseInt(args[1]);
+            if(nodes <= 0){
+                System.out.println("Number of vertices must be greater than 0");
+                System.exit(0);
+            }
+            original = new Graph(nodes, nodes > Graph.MATRIX_LIMIT);
+            original.generateCoords((long)seed);
+            original.generateAM();
+        }
+        int nodes = original.numberOfNodes();
+        if(!mode.equals("candidates") && nodes > Graph.TRIANGLE_LIMIT){
+            System.out.println("list, packed and radix sort every edge, which works for at most "
+                    + Graph.TRIANGLE_LIMIT + " vertices; use candidates");
+            System.exit(0);
+        }
+        if(!original.hasCoordinates() && (mode.equals("candidates") || localSearch)){
+            System.out.println("candidates, 2opt and oropt need coordinates, the file only gives weights");
+            System.exit(0);
+        }
 
-        //End timer
+        GreedyTSP solver = new GreedyTSP(mode, k);
+        TspResult result = solver.solve(original);
+        int[] tour = result.getTour();
 
         //Check for situational result outputs
         if (nodes <= 10) {
 
             original.printVertices();
             original.printAM();
+            Graph greed = greedyGraph(original, tour);
             System.out.printf("Greedy graph:\n");
             greed.printAM();
             ArrayList<Edge> edgeTour = greed.getEdges();
@@ -127,16 +493,12 @@ public class GreedyTSP {
             }
         }
 
-        double distanceTraveled = greed.edgeDistance();
-        ArrayList<Integer> solution = greed.dfsInit();
-
         //Output results
-        System.out.printf("\nDistance using greedy: %s for path ", df.format(distanceTraveled));
-        for (Integer i : solution){
-            System.out.printf("%d ", i);
+        new TspReporter.Console().report(solver, original, result);
+
+        if(localSearch){
+            TwoOpt.report(original, tour, df, improve.equals("oropt"));
         }
-        System.out.println("");
-        System.out.printf("Runtime for greedy TSP   : %d milliseconds\n", runtime);
     
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+/*
+* IndexedHeap.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* An indexed d-ary min-heap of vertices keyed by a double. The heap slots
+* hold the vertex ids and their keys in two parallel primitive arrays, and
+* location[] maps each vertex to its slot so that a key can be decreased in
+* place. Nothing is allocated after construction.
+*
+*/
+
+import java.util.Arrays;
+
+public class IndexedHeap{
+
+	private int heap[];
+	private double keys[];
+	private int location[];
+	private int size;
+	private int shift;
+
+	/*
+    * Constructor for the IndexedHeap object
+    *
+    * Arguments:
+    *	n: the number of vertices, ids must be in 0 to n-1
+    *	arity: the number of children per node, 2, 4 or 8
+    *
+    */
+	public IndexedHeap(int n, int arity){
+		if(arity != 2 && arity != 4 && arity != 8){
+			throw new IllegalArgumentException("arity must be 2, 4 or 8");
+		}
+		heap = new int[n];
+		keys = new double[n];
+		location = new int[n];
+		shift = Integer.numberOfTrailingZeros(arity);
+		Arrays.fill(location, -1);
+	}
+
+	//Returns the array containing each vertex's slot in the heap, -1 if absent
+	public int[] getLocation(){
+		return location;
+	}
+
+	//Checks if the vertex is currently in the heap
+	public boolean contains(int v){
+		return location[v] != -1;
+	}
+
+	//Returns the key of a vertex in the heap
+	public double key(int v){
+		return keys[location[v]];
+	}
+
+	//Checks if the heap is empty
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	//Returns the number of vertices in the heap
+	public int size(){
+		return size;
+	}
+
+	//Places a vertex and its key in a slot
+	private void place(int i, int v, double key){
+		heap[i] = v;
+		keys[i] = key;
+		location[v] = i;
+	}
+
+	//Moves the vertex at slot i up while it is lighter than its parent
+	private void swim(int i){
+		int v = heap[i];
+		double key = keys[i];
+		while(i > 0){
+			int p = (i - 1) >>> shift;
+			if(keys[p] <= key){
+				break;
+			}
+			place(i, heap[p], keys[p]);
+			i = p;
+		}
+		place(i, v, key);
+	}
+
+	//Moves the vertex at slot i down while it is heavier than its lightest child
+	private void sink(int i){
+		int v = heap[i];
+		double key = keys[i];
+		while(true){
+			int first = (i << shift) + 1;
+			if(first >= size){
+				break;
+			}
+			int last = Math.min(first + (1 << shift), size);
+			int c = first;
+			for(int j = first + 1; j < last; j++){
+				if(keys[j] < keys[c]){
+					c = j;
+				}
+			}
+			if(keys[c] >= key){
+				break;
+			}
+			place(i, heap[c], keys[c]);
+			i = c;
+		}
+		place(i, v, key);
+	}
+
+	//Adds a vertex that is not in the heap
+	public void add(int v, double key){
+		place(size, v, key);
+		size++;
+		swim(size - 1);
+	}
+
+	//Removes and returns the vertex with the smallest key
+	public int remove(){
+		int v = heap[0];
+		size--;
+		location[v] = -1;
+		if(size > 0){
+			place(0, heap[size], keys[size]);
+			sink(0);
+		}
+		return v;
+	}
+
+	//Lowers the key of a vertex in the heap if the new key is smaller (decrease-key)
+	public void update(int v, double key){
+		int i = location[v];
+		if(key < keys[i]){
+			keys[i] = key;
+			swim(i);
+		}
+	}
+}
@@ -0,0 +1,465 @@
+/*
+* KdTree.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* A static 2-d tree over the coordinates of a graph, used to answer
+* nearest neighbor queries without looking at all n^2 pairs. The tree
+* is implicit: the points are permuted so that the node for the range
+* [lo, hi) sits at its middle index, and every per-node value is stored
+* at that index. Each node keeps the bounding box of its subtree, which
+* is all the searches need to prune.
+*
+* Queries keep their state in fields, so one tree must not be searched
+* from several threads at once.
+*
+* Distances are straight line distances between the coordinates, whatever
+* metric the graph's weights follow.
+*
+*/
+
+public class KdTree{
+
+    private double xs[];
+    private double ys[];
+    private int points[];
+    private double minX[];
+    private double maxX[];
+    private double minY[];
+    private double maxY[];
+    private boolean splitX[];
+    private int nodeComp[];
+    private int position[];
+    private boolean live[];
+    private int liveCount[];
+
+    //state of the query in progress
+    private int queryPoint;
+    private int queryComp;
+    private int comp[];
+    private int best;
+    private double bestDist;
+    private int heapIds[] = new int[0];
+    private double heapDist[] = new double[0];
+    private int heapSize;
+    private int heapLimit;
+
+    /*
+    * Builds the tree over all vertices of the graph
+    *
+    * Arguments:
+    *   g: the graph whose coordinates are indexed
+    *
+    */
+    public KdTree(Graph g){
+        if(!g.hasCoordinates())
+            throw new IllegalArgumentException("the graph has no coordinates to index");
+        int n = g.numberOfNodes();
+        xs = new double[n];
+        ys = new double[n];
+        points = new int[n];
+        minX = new double[n];
+        maxX = new double[n];
+        minY = new double[n];
+        maxY = new double[n];
+        splitX = new boolean[n];
+        nodeComp = new int[n];
+        position = new int[n];
+        liveCount = new int[n];
+        for(int i = 0; i < n; i++){
+            xs[i] = g.getX(i);
+            ys[i] = g.getY(i);
+            points[i] = i;
+        }
+        build(0, n);
+        for(int i = 0; i < n; i++){
+            position[points[i]] = i;
+        }
+    }
+
+    //Returns the number of indexed points
+    public int size(){
+        return points.length;
+    }
+
+    //Recursively splits the range at the median of its wider dimension
+    private void build(int lo, int hi){
+        if(lo >= hi){
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double x0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE;
+        double y0 = Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+        for(int i = lo; i < hi; i++){
+            int p = points[i];
+            x0 = Math.min(x0, xs[p]);
+            x1 = Math.max(x1, xs[p]);
+            y0 = Math.min(y0, ys[p]);
+            y1 = Math.max(y1, ys[p]);
+        }
+        minX[mid] = x0;
+        maxX[mid] = x1;
+        minY[mid] = y0;
+        maxY[mid] = y1;
+        splitX[mid] = x1 - x0 >= y1 - y0;
+        select(lo, hi - 1, mid, splitX[mid] ? xs : ys);
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    /*
+    * Moves the point with the k-th smallest coordinate to index k, with
+    * smaller or equal coordinates before it and greater or equal after
+    *
+    * Arguments:
+    *   lo: first index of the range
+    *   hi: last index of the range (inclusive)
+    *   k: the index to fill
+    *   key: the coordinate array to order by
+    *
+    */
+    private void select(int lo, int hi, int k, double[] key){
+        while(lo < hi){
+            double pivot = key[points[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while(i <= j){
+                while(key[points[i]] < pivot)
+                    i++;
+                while(key[points[j]] > pivot)
+                    j--;
+                if(i <= j){
+                    int t = points[i];
+                    points[i] = points[j];
+                    points[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if(k <= j)
+                hi = j;
+            else if(k >= i)
+                lo = i;
+            else
+                return;
+        }
+    }
+
+    //Squared distance between two indexed points
+    public double distance2(int p, int q){
+        double dx = xs[p] - xs[q];
+        double dy = ys[p] - ys[q];
+        return dx * dx + dy * dy;
+    }
+
+    //Squared distance from the query point to the bounding box of a node
+    private double boxDistance2(int node, int p){
+        double x = xs[p];
+        double y = ys[p];
+        double dx = Math.max(Math.max(minX[node] - x, x - maxX[node]), 0);
+        double dy = Math.max(Math.max(minY[node] - y, y - maxY[node]), 0);
+        return dx * dx + dy * dy;
+    }
+
+    /*
+    * Records the component of every point for nearestOther. A node whose
+    * whole subtree lies in one component remembers it, so queries can skip
+    * it in one step. Must be called again whenever the components change.
+    *
+    * Arguments:
+    *   comp: the component label of each vertex
+    *
+    */
+    public void labelComponents(int[] comp){
+        this.comp = comp;
+        label(0, points.length);
+    }
+
+    private int label(int lo, int hi){
+        if(lo >= hi){
+            return -2;
+        }
+        int mid = (lo + hi) >>> 1;
+        int c = comp[points[mid]];
+        int left = label(lo, mid);
+        int right = label(mid + 1, hi);
+        if((left != -2 && left != c) || (right != -2 && right != c)){
+            c = -1;
+        }
+        nodeComp[mid] = c;
+        return c;
+    }
+
+    /*
+    * Finds the point closest to p that lies in a different component, using
+    * the labels from the last call to labelComponents. Ties are broken by
+    * the smaller vertex index so that every caller sees the same order.
+    *
+    * Arguments:
+    *   p: the query vertex
+    *   bound: only points at squared distance at most bound are reported
+    *
+    * Returns:
+    *   the nearest vertex outside p's component, or -1 if there is none
+    *   within the bound
+    *
+    */
+    public int nearestOther(int p, double bound){
+        queryPoint = p;
+        queryComp = comp[p];
+        best = -1;
+        bestDist = bound;
+        nearestOther(0, points.length);
+        return best;
+    }
+
+    private void nearestOther(int lo, int hi){
+        if(lo >= hi){
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if(nodeComp[mid] == queryComp || boxDistance2(mid, queryPoint) > bestDist){
+            return;
+        }
+        int q = points[mid];
+        if(comp[q] != queryComp){
+            double d = distance2(queryPoint, q);
+            if(d < bestDist || (d == bestDist && (best == -1 || q < best))){
+                bestDist = d;
+                best = q;
+            }
+        }
+        boolean leftFirst = splitX[mid] ? xs[queryPoint] < xs[q] : ys[queryPoint] < ys[q];
+        if(leftFirst){
+            nearestOther(lo, mid);
+            nearestOther(mid + 1, hi);
+        }else{
+            nearestOther(mid + 1, hi);
+            nearestOther(lo, mid);
+        }
+    }
+
+    /*
+    * Builds the neighbor lists of all points
+    *
+    * Arguments:
+    *   k: the number of neighbors per point, at most n - 1 are returned
+    *
+    * Returns:
+    *   the neighbors of point i, closest first, in entries i * k' up to
+    *   i * k' + k' - 1 where k' = min(k, n - 1)
+    *
+    */
+    public int[] neighborLists(int k){
+        int n = points.length;
+        k = Math.max(Math.min(k, n - 1), 0);
+        int[] lists = new int[n * k];
+        for(int i = 0; i < n; i++){
+            nearest(i, k, lists, i * k);
+        }
+        return lists;
+    }
+
+    /*
+    * Finds the k points closest to p, not counting p itself. Ties are
+    * broken by the smaller vertex index.
+    *
+    * Arguments:
+    *   p: the query vertex
+    *   k: the number of neighbors wanted
+    *   out: receives the neighbors, closest first
+    *   offset: the index in out of the first neighbor
+    *
+    * Returns:
+    *   the number of neighbors written, less than k only if there are
+    *   fewer than k other points
+    *
+    */
+    public int nearest(int p, int k, int[] out, int offset){
+        if(heapIds.length < k){
+            heapIds = new int[k];
+            heapDist = new double[k];
+        }
+        queryPoint = p;
+        heapSize = 0;
+        heapLimit = k;
+        nearest(0, points.length);
+        int count = heapSize;
+        while(heapSize > 0){
+            out[offset + heapSize - 1] = heapIds[0];
+            heapSize--;
+            heapIds[0] = heapIds[heapSize];
+            heapDist[0] = heapDist[heapSize];
+            sinkFarthest(0);
+        }
+        return count;
+    }
+
+    private void nearest(int lo, int hi){
+        if(lo >= hi || heapLimit == 0){
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if(heapSize == heapLimit && boxDistance2(mid, queryPoint) > heapDist[0]){
+            return;
+        }
+        int q = points[mid];
+        if(q != queryPoint){
+            double d = distance2(queryPoint, q);
+            if(heapSize < heapLimit){
+                heapIds[heapSize] = q;
+                heapDist[heapSize] = d;
+                heapSize++;
+                swimFarthest(heapSize - 1);
+            }else if(farther(heapDist[0], heapIds[0], d, q)){
+                heapIds[0] = q;
+                heapDist[0] = d;
+                sinkFarthest(0);
+            }
+        }
+        boolean leftFirst = splitX[mid] ? xs[queryPoint] < xs[q] : ys[queryPoint] < ys[q];
+        if(leftFirst){
+            nearest(lo, mid);
+            nearest(mid + 1, hi);
+        }else{
+            nearest(mid + 1, hi);
+            nearest(lo, mid);
+        }
+    }
+
+    //Orders neighbors by distance, then by index
+    private static boolean farther(double d1, int p1, double d2, int p2){
+        return d1 > d2 || (d1 == d2 && p1 > p2);
+    }
+
+    //Restores the max-heap of neighbors upwards from slot i
+    private void swimFarthest(int i){
+        while(i > 0){
+            int parent = (i - 1) / 2;
+            if(!farther(heapDist[i], heapIds[i], heapDist[parent], heapIds[parent])){
+                break;
+            }
+            swapHeap(i, parent);
+            i = parent;
+        }
+    }
+
+    //Restores the max-heap of neighbors downwards from slot i
+    private void sinkFarthest(int i){
+        while(2 * i + 1 < heapSize){
+            int c = 2 * i + 1;
+            if(c + 1 < heapSize && farther(heapDist[c + 1], heapIds[c + 1], heapDist[c], heapIds[c])){
+                c++;
+            }
+            if(!farther(heapDist[c], heapIds[c], heapDist[i], heapIds[i])){
+                break;
+            }
+            swapHeap(i, c);
+            i = c;
+        }
+    }
+
+    private void swapHeap(int i, int j){
+        int id = heapIds[i];
+        heapIds[i] = heapIds[j];
+        heapIds[j] = id;
+        double d = heapDist[i];
+        heapDist[i] = heapDist[j];
+        heapDist[j] = d;
+    }
+
+    /*
+    * Restricts nearestLive to the given points. The array is kept and
+    * updated by remove.
+    *
+    * Arguments:
+    *   live: true for every point that may still be returned
+    *
+    */
+    public void setLive(boolean[] live){
+        this.live = live;
+        countLive(0, points.length);
+    }
+
+    private int countLive(int lo, int hi){
+        if(lo >= hi){
+            return 0;
+        }
+        int mid = (lo + hi) >>> 1;
+        int c = countLive(lo, mid) + countLive(mid + 1, hi) + (live[points[mid]] ? 1 : 0);
+        liveCount[mid] = c;
+        return c;
+    }
+
+    /*
+    * Removes a point from the live set in O(log n)
+    *
+    * Arguments:
+    *   p: the vertex to remove
+    *
+    */
+    public void remove(int p){
+        if(!live[p]){
+            return;
+        }
+        live[p] = false;
+        int target = position[p];
+        int lo = 0;
+        int hi = points.length;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            liveCount[mid]--;
+            if(target == mid){
+                return;
+            }else if(target < mid){
+                hi = mid;
+            }else{
+                lo = mid + 1;
+            }
+        }
+    }
+
+    /*
+    * Finds the live point closest to p, p itself excluded
+    *
+    * Arguments:
+    *   p: the query vertex
+    *
+    * Returns:
+    *   the nearest live vertex, or -1 if none is left
+    *
+    */
+    public int nearestLive(int p){
+        queryPoint = p;
+        best = -1;
+        bestDist = Double.MAX_VALUE;
+        nearestLive(0, points.length);
+        return best;
+    }
+
+    private void nearestLive(int lo, int hi){
+        if(lo >= hi){
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if(liveCount[mid] == 0 || boxDistance2(mid, queryPoint) > bestDist){
+            return;
+        }
+        int q = points[mid];
+        if(live[q] && q != queryPoint){
+            double d = distance2(queryPoint, q);
+            if(d < bestDist || (d == bestDist && q < best)){
+                bestDist = d;
+                best = q;
+            }
+        }
+        boolean leftFirst = splitX[mid] ? xs[queryPoint] < xs[q] : ys[queryPoint] < ys[q];
+        if(leftFirst){
+            nearestLive(lo, mid);
+            nearestLive(mid + 1, hi);
+        }else{
+            nearestLive(mid + 1, hi);
+            nearestLive(lo, mid);
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+* LinKernighanTSP.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Generates an approximately optimal tour with a Lin-Kernighan style local
+* search. A move starts by removing a tour edge (t1,t2) and then grows a
+* chain: add an edge from t2 to a nearest neighbor t3, remove the edge
+* (t3,t4) that lets the tour close with (t4,t1), and continue from t4. Each
+* step is carried out as a 2-opt move on the tour, the chain is cut back to
+* the step where closing gave the largest gain, and an added edge is never
+* removed again in the same chain.
+*
+* The search starts from the candidate greedy tour and, once no move is
+* left, keeps perturbing the tour with double bridge kicks that exchange
+* two short neighboring paths. Every move made after a kick is journaled,
+* so a kick that does not end in a shorter tour is undone instead of
+* copying the tour. This goes on until the time budget is used up.
+*
+* Usage: java LinKernighanTSP nodes seed [seconds] (10 seconds by default)
+*
+*/
+
+import java.util.Arrays;
+import java.util.Random;
+import java.text.DecimalFormat;
+
+public class LinKernighanTSP {
+
+    //Longest chain of 2-opt steps in one move
+    static final int MAX_DEPTH = 50;
+
+    //Longest path moved by a double bridge kick
+    static final int KICK_LENGTH = 50;
+
+    //Journal entry layout: kind, then up to five cities or lengths
+    private static final int ENTRY = 6;
+    private static final int TWO_OPT = 0;
+    private static final int KICK = 1;
+
+    private Graph g;
+    private Tour tour;
+    private int neighbors[];
+    private int k;
+    private int queue[];
+    private boolean queued[];
+    private int head;
+    private int count;
+    private int journal[] = new int[ENTRY * 64];
+    private int journalSize;
+    private int added[] = new int[2 * MAX_DEPTH];
+
+    /*
+    * Prepares a search over the given tour
+    *
+    * Arguments:
+    *   g: the graph the tour belongs to
+    *   tour: the tour to improve, it is changed in place
+    *   neighbors: the neighbor lists, k per city, closest first
+    *
+    */
+    public LinKernighanTSP(Graph g, Tour tour, int[] neighbors){
+        int n = tour.size();
+        this.g = g;
+        this.tour = tour;
+        this.neighbors = neighbors;
+        k = n == 0 ? 0 : neighbors.length / n;
+        queue = new int[n];
+        queued = new boolean[n];
+    }
+
+    /*
+    * Improves a tour with Lin-Kernighan moves and double bridge kicks
+    *
+    * Arguments:
+    *   g: the graph the tour belongs to
+    *   cities: the starting tour, every vertex exactly once
+    *   budget: the time to spend in milliseconds
+    *   seed: the seed for choosing kicks
+    *
+    * Returns:
+    *   the best tour found, starting at vertex 0
+    *
+    */
+    public static int[] solve(Graph g, int[] cities, long budget, long seed){
+        long deadline = System.nanoTime() + budget * 1000000L;
+        Tour tour = new Tour(cities);
+        LinKernighanTSP lk = new LinKernighanTSP(g, tour, new KdTree(g).neighborLists(TwoOpt.NEIGHBORS));
+        for(int v = 0; v < tour.size(); v++){
+            lk.push(v);
+        }
+        lk.run();
+        lk.journalSize = 0;
+
+        Random random = new Random(seed);
+        while(tour.size() >= 8 && System.nanoTime() < deadline){
+            double delta = lk.kick(random) - lk.run();
+            if(delta >= -TwoOpt.EPSILON){
+                lk.undo(0);
+            }
+            lk.journalSize = 0;
+        }
+        return tour.toArray();
+    }
+
+    //Switches a city's don't-look bit off
+    void push(int v){
+        if(!queued[v]){
+            queued[v] = true;
+            queue[(head + count) % queue.length] = v;
+            count++;
+        }
+    }
+
+    /*
+    * Runs until every city has its don't-look bit set
+    *
+    * Returns:
+    *   the total length removed from the tour
+    *
+    */
+    private double run(){
+        double gain = 0;
+        while(count > 0){
+            int t1 = queue[head];
+            queued[t1] = false;
+            head = head + 1 == queue.length ? 0 : head + 1;
+            count--;
+            double found = move(t1, tour.next(t1));
+            if(found == 0){
+                found = move(t1, tour.prev(t1));
+            }
+            if(found > 0){
+                gain += found;
+                push(t1);
+            }
+        }
+        return gain;
+    }
+
+    /*
+    * Grows a chain of 2-opt steps that starts by removing (t1,t2) and keeps
+    * the prefix of the chain with the largest gain
+    *
+    * Arguments:
+    *   t1: the city the chain starts at, it stays an endpoint throughout
+    *   t2: a tour neighbor of t1
+    *
+    * Returns:
+    *   the length removed from the tour, 0 if the tour was not changed
+    *
+    */
+    private double move(int t1, int t2){
+        int base = journalSize;
+        int best = base;
+        double bestGain = TwoOpt.EPSILON;
+        double gain = g.getWeight(t1, t2);
+        int depth = 0;
+
+        for(; depth < MAX_DEPTH; depth++){
+            boolean forward = tour.next(t2) == t1;
+            int succ = tour.next(t2);
+            int pred = tour.prev(t2);
+            int t3 = -1;
+            int t4 = -1;
+            double bestValue = 0;
+            for(int i = t2 * k; i < t2 * k + k; i++){
+                int c = neighbors[i];
+                double g1 = gain - g.getWeight(t2, c);
+                if(g1 <= TwoOpt.EPSILON){
+                    break;
+                }
+                if(c == t1 || c == succ || c == pred){
+                    continue;
+                }
+                int d = forward ? tour.next(c) : tour.prev(c);
+                if(isAdded(c, d, depth)){
+                    continue;
+                }
+                double value = g1 + g.getWeight(c, d);
+                if(value > bestValue){
+                    bestValue = value;
+                    t3 = c;
+                    t4 = d;
+                }
+            }
+            if(t3 < 0){
+                break;
+            }
+
+            //remove (t2,t1) and (t3,t4), add (t2,t3) and close with (t1,t4)
+            tour.twoOptMove(t2, t1, t3, t4);
+            record(TWO_OPT, t2, t1, t3, t4, 0);
+            added[2 * depth] = t2;
+            added[2 * depth + 1] = t3;
+            gain = bestValue;
+            double closed = gain - g.getWeight(t4, t1);
+            if(closed > bestGain){
+                bestGain = closed;
+                best = journalSize;
+            }
+            t2 = t4;
+        }
+
+        undo(best);
+        if(best == base){
+            return 0;
+        }
+        for(int e = base; e < best; e += ENTRY){
+            for(int i = 1; i <= 4; i++){
+                push(journal[e + i]);
+            }
+        }
+        return bestGain;
+    }
+
+    //Checks if the edge (a,b) was added by one of the first depth steps of the chain
+    private boolean isAdded(int a, int b, int depth){
+        for(int i = 0; i < 2 * depth; i += 2){
+            if(added[i] == a && added[i + 1] == b || added[i] == b && added[i + 1] == a){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+    * Exchanges two neighboring paths of random length at a random place in
+    * the tour and switches the don't-look bits of their ends off
+    *
+    * Arguments:
+    *   random: the source of the kick's position and lengths
+    *
+    * Returns:
+    *   the length added to the tour
+    *
+    */
+    private double kick(Random random){
+        int n = tour.size();
+        int limit = Math.min(KICK_LENGTH, (n - 2) / 2);
+        int length1 = 1 + random.nextInt(limit);
+        int length2 = 1 + random.nextInt(limit);
+        int b1 = random.nextInt(n);
+        int a = tour.prev(b1);
+        int b2 = b1;
+        for(int i = 1; i < length1; i++){
+            b2 = tour.next(b2);
+        }
+        int c1 = tour.next(b2);
+        int c2 = c1;
+        for(int i = 1; i < length2; i++){
+            c2 = tour.next(c2);
+        }
+        int d = tour.next(c2);
+
+        double delta = g.getWeight(a, c1) + g.getWeight(c2, b1) + g.getWeight(b2, d)
+                - g.getWeight(a, b1) - g.getWeight(b2, c1) - g.getWeight(c2, d);
+        tour.swapSegments(b1, length1, length2);
+        record(KICK, a, c1, b2, length1, length2);
+        push(a);
+        push(b1);
+        push(b2);
+        push(c1);
+        push(c2);
+        push(d);
+        return delta;
+    }
+
+    //Appends a move to the journal
+    private void record(int kind, int v1, int v2, int v3, int v4, int v5){
+        if(journalSize + ENTRY > journal.length){
+            journal = Arrays.copyOf(journal, journal.length * 2);
+        }
+        journal[journalSize] = kind;
+        journal[journalSize + 1] = v1;
+        journal[journalSize + 2] = v2;
+        journal[journalSize + 3] = v3;
+        journal[journalSize + 4] = v4;
+        journal[journalSize + 5] = v5;
+        journalSize += ENTRY;
+    }
+
+    /*
+    * Takes back journaled moves, last first, until the journal has the
+    * given size. A reversal may have flipped the other side of the tour,
+    * so each move is undone by the edges it made rather than by direction.
+    *
+    * Arguments:
+    *   size: the journal size to go back to
+    *
+    */
+    private void undo(int size){
+        while(journalSize > size){
+            journalSize -= ENTRY;
+            int e = journalSize;
+            if(journal[e] == TWO_OPT){
+                //(a,c) and (b,d) were added, put (a,b) and (c,d) back
+                tour.twoOptMove(journal[e + 1], journal[e + 3], journal[e + 2], journal[e + 4]);
+            }else{
+                //the tour reads a C B d one way or d B' C' a the other
+                int a = journal[e + 1];
+                int c1 = journal[e + 2];
+                int b2 = journal[e + 3];
+                if(tour.next(a) == c1){
+                    tour.swapSegments(c1, journal[e + 5], journal[e + 4]);
+                }else{
+                    tour.swapSegments(b2, journal[e + 4], journal[e + 5]);
+                }
+            }
+        }
+    }
+
+    /*
+    * Method: isInt
+    *
+    * Checks to see if the given string is an integer
+    *
+    * Arguments:
+    *   s: string to be checked
+    *
+    * Returns:
+    *   If s is an int, return true.
+    *   If s is not an int, return false.
+    *
+    */
+    public static boolean isInt(String s){
+        try{
+            Integer.parseInt(s);
+            return true;
+        }catch(NumberFormatException e){
+            return false;
+        }
+    }
+
+    public static void main(String[] args) {
+        DecimalFormat df = new DecimalFormat("0.00");
+        //Check input
+        if(args.length != 2 && args.length != 3){
+            System.out.println("Usage: java LinKernighanTSP nodes seed [seconds]");
+            System.exit(0);
+        }
+        if(!isInt(args[0]) || !isInt(args[1]) || args.length == 3 && !isInt(args[2])){
+            System.out.println("Command line args must be integers");
+            System.exit(0);
+        }
+
+        int nodes = Integer.parseInt(args[0]);
+        int seed = Integer.parseInt(args[1]);
+        int seconds = args.length == 3 ? Integer.parseInt(args[2]) : 10;
+
+        if(nodes <= 0){
+            System.out.println("Number of vertices must be greater than 0");
+            System.exit(0);
+        }
+        if(seconds < 0){
+            System.out.println("Time budget must not be negative");
+            System.exit(0);
+        }
+
+        Graph g = new Graph(nodes, nodes > Graph.MATRIX_LIMIT);
+        g.generateCoords((long) seed);
+        g.generateAM();
+
+        if (nodes <= 10) {
+            g.printVertices();
+            g.printAM();
+        }
+
+        //Begin timer and algorithm
+        long time = System.currentTimeMillis();
+        int[] start = GreedyTSP.greedyCandidates(g, TwoOpt.NEIGHBORS);
+        long startTime = System.currentTimeMillis() - time;
+        int[] tour = solve(g, start, seconds * 1000L - startTime, seed);
+        long runtime = System.currentTimeMillis() - time;
+
+        //End timer
+
+        //Output results
+        System.out.printf("\nDistance using greedy: %s\n", df.format(g.tourDistance(start)));
+        System.out.printf("Distance using Lin-Kernighan: %s for path ", df.format(g.tourDistance(tour)));
+        for (int v : tour){
+            System.out.printf("%d ", v);
+        }
+        System.out.println("0");
+        System.out.printf("Runtime for Lin-Kernighan TSP   : %d milliseconds\n", runtime);
+    }
+}
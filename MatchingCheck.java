@@ -0,0 +1,171 @@
+/*
+* MatchingCheck.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Checks PerfectMatching.minimum against a brute force over every perfect
+* matching. The vertex sets are the odd degree vertices of the spanning
+* tree, as Christofides uses them, on three kinds of graphs: random
+* coordinates, cities on a small integer grid with TSPLIB rounding (many
+* tied weights), and cities piled on a few points (many zero weights).
+* Whole number weights must give the exact minimum, the others the
+* minimum up to the rounding described in PerfectMatching.
+*
+* Exits with status 1 if any matching is invalid or too long.
+*
+* Usage: java MatchingCheck [rounds]
+* (by default 30 rounds of every kind of graph)
+*
+*/
+
+import java.util.Random;
+
+public class MatchingCheck{
+
+    //Largest vertex set matched, 13!! = 135135 matchings for the brute force
+    static final int MAX_VERTICES = 14;
+
+    /*
+    * Finds the minimum total weight of a perfect matching by trying every
+    * partner for the first unmatched vertex
+    *
+    * Arguments:
+    *   g: the graph the vertices belong to
+    *   vertices: an even number of distinct vertices
+    *   used: which entries of vertices are already matched
+    *
+    * Returns:
+    *   the smallest total weight of a perfect matching of the rest
+    *
+    */
+    static double bruteForce(Graph g, int[] vertices, boolean[] used){
+        int first = 0;
+        while(first < vertices.length && used[first]){
+            first++;
+        }
+        if(first == vertices.length){
+            return 0;
+        }
+        used[first] = true;
+        double best = Double.MAX_VALUE;
+        for(int i = first + 1; i < vertices.length; i++){
+            if(used[i]){
+                continue;
+            }
+            used[i] = true;
+            double w = g.getWeight(vertices[first], vertices[i]) + bruteForce(g, vertices, used);
+            best = Math.min(best, w);
+            used[i] = false;
+        }
+        used[first] = false;
+        return best;
+    }
+
+    /*
+    * Collects the odd degree vertices of the graph's spanning tree, at most
+    * MAX_VERTICES of them and always an even number
+    *
+    * Arguments:
+    *   g: the graph, its MST is built here
+    *
+    * Returns:
+    *   the vertices to be matched
+    *
+    */
+    static int[] oddVertices(Graph g){
+        MstTSP.mstDense(g);
+        int n = g.numberOfNodes();
+        int[] parent = g.getMstParents();
+        int[] degree = new int[n];
+        for(int v = 0; v < n; v++){
+            if(parent[v] != -1){
+                degree[v]++;
+                degree[parent[v]]++;
+            }
+        }
+        int[] odd = new int[n];
+        int count = 0;
+        for(int v = 0; v < n; v++){
+            if(degree[v] % 2 == 1)
+                odd[count++] = v;
+        }
+        count = Math.min(count, MAX_VERTICES) & ~1;
+        return java.util.Arrays.copyOf(odd, count);
+    }
+
+    /*
+    * Matches the odd vertices of a graph and compares with the brute force
+    *
+    * Arguments:
+    *   g: the graph to check
+    *   whole: true if every weight is a whole number
+    *
+    * Returns:
+    *   a description of the problem, or null if the matching is fine
+    *
+    */
+    static String check(Graph g, boolean whole){
+        int[] vertices = oddVertices(g);
+        int m = vertices.length;
+        int[] mate = PerfectMatching.minimum(g, vertices);
+
+        double total = 0;
+        for(int i = 0; i < m; i++){
+            if(mate[i] < 0 || mate[i] >= m || mate[i] == i || mate[mate[i]] != i)
+                return "entry " + i + " is not matched properly";
+            if(i < mate[i])
+                total += g.getWeight(vertices[i], vertices[mate[i]]);
+        }
+        double best = bruteForce(g, vertices, new boolean[m]);
+        double allowed = whole ? 1e-9 : m / (2 * PerfectMatching.SCALE);
+        if(total > best + allowed)
+            return "total " + total + " against " + best + " by brute force";
+        return null;
+    }
+
+    public static void main(String[] args){
+        if(args.length > 1 || (args.length == 1 && !GreedyTSP.isInt(args[0]))){
+            System.out.println("Usage: java MatchingCheck [rounds]");
+            System.exit(0);
+        }
+        int rounds = args.length == 1 ? Integer.parseInt(args[0]) : 30;
+        Random random = new Random(1);
+        String[] kinds = {"random", "grid", "few points"};
+        int checked = 0;
+        int failed = 0;
+
+        for(int round = 0; round < rounds; round++){
+            int n = 2 + random.nextInt(30);
+            for(int k = 0; k < kinds.length; k++){
+                Graph g;
+                if(k == 0){
+                    g = new Graph(n);
+                    g.generateCoords(round + 1);
+                }else{
+                    double[] xs = new double[n];
+                    double[] ys = new double[n];
+                    int spread = k == 1 ? 5 : 2;
+                    for(int i = 0; i < n; i++){
+                        xs[i] = random.nextInt(spread) * (k == 1 ? 1 : 3);
+                        ys[i] = random.nextInt(spread) * (k == 1 ? 1 : 4);
+                    }
+                    g = new Graph(xs, ys, Graph.EUC_2D, false);
+                }
+                g.generateAM();
+
+                checked++;
+                String problem = check(g, k != 0);
+                if(problem != null){
+                    System.out.println("Round " + round + ", " + kinds[k] + " with " + n
+                            + " cities: " + problem);
+                    failed++;
+                }
+            }
+        }
+
+        System.out.println(checked + " matchings compared, " + failed + " failures");
+        if(failed > 0){
+            System.exit(1);
+        }
+    }
+}
@@ -9,9 +9,29 @@
 * Euclidean weights, the minimum spanning tree used to find the approximate
 * tour, the total weight of the MST, and the parent of each vertex after a pre-
 * order traversal of the MST will be printed.
+*
+* An optional third argument selects how the MST is built:
+*   heap:  Prim's algorithm over a binary heap of edges (default)
+*   indexed: Prim's algorithm over a 4-ary IndexedHeap of vertices
+*   dense: Prim's algorithm over primitive arrays, O(n^2) on the complete graph
+*   spatial: Boruvka's algorithm over a k-d tree of the coordinates, about
+*            O(n log^2 n) without ever looking at all pairs
+*
+* Adding christofides after the MST choice also turns the MST into a tour
+* with Christofides' algorithm and prints it after the pre-order tour, so
+* the two can be compared on the same tree. christofides-greedy uses a
+* greedy matching instead of a minimum one, which is much faster but
+* loses the 1.5 guarantee.
+*
+* A TSPLIB or CSV file (see TspLoader) may be given in place of the
+* number of cities and the seed. The spatial modes measure straight line
+* distances, which rank neighbors correctly for EUC_2D and ATT but only
+* approximately for GEO.
 * 
 */
 
+import java.util.Arrays;
+
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -19,18 +39,90 @@ import java.util.Map;
 import java.util.Random;
 import java.text.DecimalFormat;
 
-public class MstTSP{
+public class MstTSP implements TspSolver{
+
+    private final String mode;
+
+    //Creates a solver using Prim's algorithm over a binary heap
+    public MstTSP(){
+        this("heap");
+    }
+
+    /*
+    * Constructor for the MstTSP solver
+    *
+    * Arguments:
+    *   mode: heap, indexed, dense or spatial
+    *
+    */
+    public MstTSP(String mode){
+        checkMode(mode);
+        this.mode = mode;
+    }
+
+    //Rejects an unknown way of building the MST
+    static void checkMode(String mode){
+        if(!mode.equals("heap") && !mode.equals("indexed") && !mode.equals("dense")
+                && !mode.equals("spatial")){
+            throw new IllegalArgumentException("mode must be one of: heap, indexed, dense, spatial");
+        }
+    }
+
+    public String name(){
+        return "mst";
+    }
+
+    /*
+    * Builds the MST, which is stored in the graph, and returns its
+    * pre-order walk as the tour
+    *
+    * Arguments:
+    *   g: the graph to build a tour for
+    *
+    * Returns:
+    *   the tour with the phases mst (including the traversal) and tour
+    *
+    */
+    public TspResult solve(Graph g){
+        g.beginSolve();
+        try{
+            long start = System.nanoTime();
+            build(g, mode);
+            long mstDone = System.nanoTime();
+            int[] tour = g.getPreorder();
+            long tourDone = System.nanoTime();
+            return new TspResult(tour, g.tourDistance(tour), new String[]{"mst", "tour"},
+                    new long[]{mstDone - start, tourDone - mstDone});
+        }finally{
+            g.endSolve();
+        }
+    }
 
-    private static Graph g;
-    private static int nodes;
-    private static int seed;
-    static DecimalFormat df = new DecimalFormat("0.00");
+    /*
+    * Builds the MST of a graph and its pre-order traversal
+    *
+    * Arguments:
+    *   g: the graph, the MST is stored in it
+    *   mode: heap, indexed, dense or spatial
+    *
+    */
+    public static void build(Graph g, String mode){
+        if(mode.equals("indexed")){
+            mstIndexed(g, 4);
+        }else if(mode.equals("dense")){
+            mstDense(g);
+        }else if(mode.equals("spatial")){
+            mstSpatial(g);
+        }else{
+            mst(g);
+        }
+    }
 
     /*
     * Implementation of Prim's algorithm with a priority queue implemented as a binary heap
     */
     public static void mst(Graph g){
-    	BinaryHeap f = new BinaryHeap(g.getAM().length, g);
+    	BinaryHeap f = new BinaryHeap(g.numberOfNodes(), g);
     	int[] loc = f.getLocation();
     	for(Edge e : g.getNeighbors(0, g)){
     		if(loc[e.row] == -1){
@@ -55,6 +147,259 @@ public class MstTSP{
     	g.preorder();
     }
     
+    /*
+    * Implementation of Prim's algorithm with an indexed d-ary heap of
+    * vertices keyed by their cheapest edge into the tree. Keys and vertex
+    * ids live in primitive arrays, so no edges are created or boxed.
+    *
+    * Arguments:
+    *   g: the graph
+    *   arity: the arity of the heap, 2, 4 or 8
+    */
+    public static void mstIndexed(Graph g, int arity){
+        int n = g.numberOfNodes();
+        IndexedHeap f = new IndexedHeap(n, arity);
+        int[] parent = new int[n];
+        boolean[] inTree = new boolean[n];
+        Arrays.fill(parent, -1);
+        if(n > 0){
+            f.add(0, 0);
+        }
+        while(!f.isEmpty()){
+            int u = f.remove();
+            inTree[u] = true;
+            for(int v = 0; v < n; v++){
+                if(inTree[v]){
+                    continue;
+                }
+                double w = g.getWeight(u, v);
+                if(!f.contains(v)){
+                    f.add(v, w);
+                    parent[v] = u;
+                }else if(w < f.key(v)){
+                    f.update(v, w);
+                    parent[v] = u;
+                }
+            }
+        }
+        g.setMstParents(parent);
+        g.preorder();
+    }
+
+    /*
+    * Implementation of Prim's algorithm for dense graphs. Every vertex keeps
+    * the weight of its cheapest edge into the tree in key[] and the tree end
+    * of that edge in parent[]. Each round adds the closest vertex and relaxes
+    * the keys of the others in the same scan, so the complete graph costs
+    * O(n^2) time with no allocation beyond the three arrays.
+    */
+    public static void mstDense(Graph g){
+        int n = g.numberOfNodes();
+        double[] key = new double[n];
+        int[] parent = new int[n];
+        boolean[] inTree = new boolean[n];
+        Arrays.fill(key, Double.MAX_VALUE);
+        Arrays.fill(parent, -1);
+
+        int next = 0;
+        while(next != -1){
+            int u = next;
+            inTree[u] = true;
+            next = -1;
+            double best = Double.MAX_VALUE;
+            for(int v = 0; v < n; v++){
+                if(inTree[v]){
+                    continue;
+                }
+                double w = g.getWeight(u, v);
+                if(w < key[v]){
+                    key[v] = w;
+                    parent[v] = u;
+                }
+                if(key[v] < best){
+                    best = key[v];
+                    next = v;
+                }
+            }
+        }
+        g.setMstParents(parent);
+        g.preorder();
+    }
+
+    /*
+    * Euclidean minimum spanning tree by Boruvka's algorithm. Every round
+    * asks a k-d tree for the nearest vertex outside each vertex's component,
+    * keeps the cheapest such edge per component and merges along those
+    * edges with union-find. Each round at least halves the number of
+    * components, so there are at most log n rounds. Ties are broken by the
+    * vertex indices so all components agree on the order of edges, and the
+    * search from each vertex is bounded by the best edge its component has
+    * found so far. The tree is then rooted at 0 and traversed in preorder
+    * as in mst().
+    */
+    public static void mstSpatial(Graph g){
+        int n = g.numberOfNodes();
+        KdTree tree = new KdTree(g);
+        DisjointSet sets = new DisjointSet(n);
+        int[] comp = new int[n];
+        int[] bestFrom = new int[n];
+        int[] bestTo = new int[n];
+        double[] bestDist = new double[n];
+        int[] edgeA = new int[Math.max(n - 1, 0)];
+        int[] edgeB = new int[Math.max(n - 1, 0)];
+        int edgeCount = 0;
+
+        while(edgeCount < n - 1){
+            for(int i = 0; i < n; i++){
+                comp[i] = sets.find(i);
+            }
+            tree.labelComponents(comp);
+            Arrays.fill(bestTo, -1);
+            for(int p = 0; p < n; p++){
+                int c = comp[p];
+                int q = tree.nearestOther(p, bestTo[c] == -1 ? Double.MAX_VALUE : bestDist[c]);
+                if(q == -1){
+                    continue;
+                }
+                double d = tree.distance2(p, q);
+                if(bestTo[c] == -1 || lighter(d, p, q, bestDist[c], bestFrom[c], bestTo[c])){
+                    bestDist[c] = d;
+                    bestFrom[c] = p;
+                    bestTo[c] = q;
+                }
+            }
+            for(int c = 0; c < n; c++){
+                if(bestTo[c] == -1){
+                    continue;
+                }
+                if(sets.union(bestFrom[c], bestTo[c])){
+                    edgeA[edgeCount] = bestFrom[c];
+                    edgeB[edgeCount] = bestTo[c];
+                    edgeCount++;
+                }
+            }
+        }
+        g.setMstParents(rootTree(n, edgeA, edgeB, 0));
+        g.preorder();
+    }
+
+    //Orders candidate edges by squared length, then by their endpoints
+    private static boolean lighter(double d1, int a1, int b1, double d2, int a2, int b2){
+        if(d1 != d2){
+            return d1 < d2;
+        }
+        int lo1 = Math.min(a1, b1), lo2 = Math.min(a2, b2);
+        if(lo1 != lo2){
+            return lo1 < lo2;
+        }
+        return Math.max(a1, b1) < Math.max(a2, b2);
+    }
+
+    /*
+    * Turns the n-1 edges of a spanning tree into a parent array
+    *
+    * Arguments:
+    *   n: the number of vertices
+    *   a, b: the endpoints of each tree edge
+    *   root: the vertex that becomes the root
+    *
+    * Returns:
+    *   the parent of every vertex, -1 for the root
+    * 
+    */
+    static int[] rootTree(int n, int[] a, int[] b, int root){
+        int[] start = new int[n + 1];
+        for(int i = 0; i < a.length; i++){
+            start[a[i] + 1]++;
+            start[b[i] + 1]++;
+        }
+        for(int i = 0; i < n; i++){
+            start[i + 1] += start[i];
+        }
+        int[] adjacent = new int[2 * a.length];
+        int[] next = Arrays.copyOf(start, n);
+        for(int i = 0; i < a.length; i++){
+            adjacent[next[a[i]]++] = b[i];
+            adjacent[next[b[i]]++] = a[i];
+        }
+
+        int[] parent = new int[n];
+        int[] stack = new int[n];
+        Arrays.fill(parent, -1);
+        int top = 0;
+        if(n > 0){
+            stack[top++] = root;
+            parent[root] = root;
+        }
+        while(top > 0){
+            int v = stack[--top];
+            for(int i = start[v]; i < start[v + 1]; i++){
+                int u = adjacent[i];
+                if(parent[u] == -1){
+                    parent[u] = v;
+                    stack[top++] = u;
+                }
+            }
+        }
+        if(n > 0){
+            parent[root] = -1;
+        }
+        return parent;
+    }
+
+    /*
+    * Computes the weight of the minimum spanning tree over a subset of the
+    * vertices with the same dense Prim as mstDense(). The vertices that are
+    * not yet in the tree are kept at the end of verts, next to their keys,
+    * so every round is one scan and nothing is allocated. The tree itself
+    * is not recorded in the graph. Used as a lower bound at every node of
+    * the branch and bound search in OptimalTSP.
+    *
+    * Arguments:
+    *   g: the graph containing the vertices
+    *   cities: array holding the subset in positions from to to-1
+    *   from: first index of the subset
+    *   to: one past the last index of the subset
+    *   verts: scratch space for at least to-from vertices
+    *   key: scratch space for at least to-from weights
+    *
+    * Returns:
+    *   the total weight of the spanning tree of the subset
+    * 
+    */
+    public static double mstCost(Graph g, int[] cities, int from, int to, int[] verts, double[] key){
+        int k = to - from;
+        if(k <= 1){
+            return 0;
+        }
+        System.arraycopy(cities, from, verts, 0, k);
+        int u = verts[0];
+        for(int i = 1; i < k; i++){
+            key[i] = g.getWeight(u, verts[i]);
+        }
+        double cost = 0;
+        for(int t = 1; t < k; t++){
+            int best = t;
+            for(int i = t + 1; i < k; i++){
+                if(key[i] < key[best]){
+                    best = i;
+                }
+            }
+            cost += key[best];
+            u = verts[best];
+            verts[best] = verts[t];
+            key[best] = key[t];
+            verts[t] = u;
+            for(int i = t + 1; i < k; i++){
+                double w = g.getWeight(u, verts[i]);
+                if(w < key[i]){
+                    key[i] = w;
+                }
+            }
+        }
+        return cost;
+    }
+    
     /**
     * Method: isInt
     *
@@ -78,34 +423,70 @@ public class MstTSP{
     }
 
     public static void main(String[] args) {
+        DecimalFormat df = new DecimalFormat("0.00");
+        //A file name in place of nodes and seed loads the instance from the file
+        boolean fromFile = args.length > 0 && !isInt(args[0]);
+        int given = fromFile ? 1 : 2;
+        //A trailing 2opt or oropt improves the constructed tour afterwards
+        String improve = args.length > given ? args[args.length - 1] : "";
+        boolean localSearch = improve.equals("2opt") || improve.equals("oropt");
+        if(localSearch){
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+        //christofides or christofides-greedy also builds a Christofides tour from the MST
+        String christofides = args.length > given ? args[args.length - 1] : "";
+        boolean matching = christofides.equals("christofides") || christofides.equals("christofides-greedy");
+        if(matching){
+            args = Arrays.copyOf(args, args.length - 1);
+        }
         //Check input
-        if(args.length != 2){
-            System.out.println("Usage: java MstTSP nodes seed");
+        if(args.length != given && args.length != given + 1){
+            System.out.println("Usage: java MstTSP (nodes seed | file) [heap|indexed|dense|spatial]"
+                    + " [christofides|christofides-greedy] [2opt|oropt]");
             System.exit(0);
         }
-        if(!isInt(args[0]) || !isInt(args[1])){
+        if(!fromFile && !isInt(args[1])){
             System.out.println("Command line args must be integers");
             System.exit(0);
         }
         
-        nodes = (int) Integer.parseInt(args[0]);
-        seed = (int) Integer.parseInt(args[1]);
+        String mode = args.length == given + 1 ? args[given] : "heap";
         
-        if(nodes <= 0){
-            System.out.println("Number of vertices must be greater than 0");
+        if(!mode.equals("heap") && !mode.equals("indexed") && !mode.equals("dense")
+                && !mode.equals("spatial")){
+            System.out.println("Mode must be one of: heap, indexed, dense, spatial");
             System.exit(0);
         }
 
-        g = new Graph(nodes);
-        g.generateCoords((long) seed);
-        g.generateAM();
-        g.generateEdges(g);
-        //Begin timer and algorithm
-        long time = System.currentTimeMillis();
-        mst(g);
-        long runtime = System.currentTimeMillis() - time;
+        Graph g;
+        if(fromFile){
+            g = TspLoader.loadOrExit(args[0]);
+        }else{
+            int nodes = Integer.parseInt(args[0]);
+            int seed = Integer.parseInt(args[1]);
+            if(nodes <= 0){
+                System.out.println("Number of vertices must be greater than 0");
+                System.exit(0);
+            }
+            g = new Graph(nodes, nodes > Graph.MATRIX_LIMIT);
+            g.generateCoords((long) seed);
+            g.generateAM();
+        }
+        int nodes = g.numberOfNodes();
+        if(christofides.equals("christofides") && nodes > Christofides.EXACT_LIMIT){
+            System.out.println("The exact matching is limited to " + Christofides.EXACT_LIMIT
+                    + " vertices, use christofides-greedy");
+            System.exit(0);
+        }
+        if(!g.hasCoordinates() && (mode.equals("spatial") || christofides.equals("christofides-greedy")
+                || localSearch)){
+            System.out.println("spatial, christofides-greedy, 2opt and oropt need coordinates,"
+                    + " the file only gives weights");
+            System.exit(0);
+        }
 
-        //End timer
+        MstTSP solver = new MstTSP(mode);
+        TspResult result = solver.solve(g);
 
         //Check for situational result outputs
         if (nodes <= 10) {
@@ -144,22 +525,30 @@ public class MstTSP{
             System.out.println("");
         }
 
-        LinkedHashMap<Integer, Integer> solution = g.getTraversal();
-
         if (nodes <= 10) {
+            int[] parent = g.getMstParents();
             System.out.println("Pre-order traversal: ");
-            for(Map.Entry<Integer, Integer> entry : solution.entrySet()){
-            	System.out.printf("Parent of %d is %d\n", entry.getKey(), entry.getValue());
+            for(int v : g.getPreorder()){
+            	System.out.printf("Parent of %d is %d\n", v, parent[v]);
             }
         }
 
         //Output results
-        System.out.printf("\nDistance using mst: %s for path ", df.format(g.traversalDistance()));
-        for (Integer i : solution.keySet()){
-            System.out.printf("%d ", i);
+        TspReporter reporter = new TspReporter.Console();
+        reporter.report(solver, g, result);
+        int[] cities = result.getTour();
+
+        //The Christofides tour reuses the MST, so only the rest is timed
+        if(matching){
+            Christofides second = new Christofides(mode, christofides.equals("christofides"));
+            TspResult fromTree = second.fromTree(g);
+            reporter.report(second, g, fromTree);
+            cities = fromTree.getTour();
+        }
+
+        if(localSearch){
+            TwoOpt.report(g, cities, df, improve.equals("oropt"));
         }
-        System.out.println("0");
-        System.out.printf("Runtime for Mst TSP   : %d milliseconds\n", runtime);
     
     }
 }
\ No newline at end of file
@@ -0,0 +1,273 @@
+/*
+* MultiStartTSP.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Runs many randomized tour constructions, each followed by 2-opt and
+* Or-opt, on a pool of threads and keeps the shortest tour. The graph and
+* the nearest neighbor lists are built once and only read by the workers;
+* everything a start changes (its Tour, its local search engines, its
+* k-d tree) belongs to that start alone. The best tour so far is held in an
+* AtomicReference and replaced with compare-and-set, so finishing starts
+* never wait on each other.
+*
+* Start 0 is the candidate greedy tour. The other starts are randomized
+* nearest neighbor tours: from a random city, move to the nearest
+* unvisited city, or now and then to the second nearest one among the
+* neighbor list. Each start has its own seed, so the result does not
+* depend on how the starts are scheduled.
+*
+* Usage: java MultiStartTSP nodes seed [starts] [threads]
+* (by default 4 starts per processor on every processor)
+*
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.text.DecimalFormat;
+
+public class MultiStartTSP {
+
+    //Chance of taking the second nearest candidate in a randomized construction
+    static final double DETOUR = 0.1;
+
+    //A finished start, never changed after it is published
+    static final class Result {
+        final int[] tour;
+        final double length;
+        final int start;
+
+        Result(int[] tour, double length, int start){
+            this.tour = tour;
+            this.length = length;
+            this.start = start;
+        }
+
+        //Shorter wins, equal lengths go to the lower start so the outcome is repeatable
+        boolean betterThan(Result other){
+            return other == null || length < other.length
+                    || length == other.length && start < other.start;
+        }
+    }
+
+    private final Graph g;
+    private final int[] neighbors;
+    private final long seed;
+    private final AtomicReference<Result> best = new AtomicReference<Result>();
+    private final AtomicLong work = new AtomicLong();
+
+    /*
+    * Prepares the shared, read-only data for a run
+    *
+    * Arguments:
+    *   g: the graph, it must not be changed while running
+    *   seed: the seed the per-start seeds are derived from
+    *
+    */
+    public MultiStartTSP(Graph g, long seed){
+        this.g = g;
+        this.seed = seed;
+        neighbors = new KdTree(g).neighborLists(TwoOpt.NEIGHBORS);
+    }
+
+    /*
+    * Runs the starts on a fixed pool of threads
+    *
+    * Arguments:
+    *   starts: the number of constructions
+    *   threads: the number of worker threads
+    *
+    * Returns:
+    *   the shortest tour, starting at vertex 0
+    *
+    */
+    public int[] solve(int starts, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try{
+            List<Future<?>> futures = new ArrayList<Future<?>>(starts);
+            for(int i = 0; i < starts; i++){
+                final int start = i;
+                futures.add(pool.submit(() -> offer(run(start))));
+            }
+            //get() rethrows a worker's exception
+            for(Future<?> f : futures){
+                f.get();
+            }
+        }finally{
+            pool.shutdown();
+        }
+        return best.get().tour;
+    }
+
+    //Returns the start the best tour came from
+    public int bestStart(){
+        return best.get().start;
+    }
+
+    //Returns the time spent in all starts together, in milliseconds
+    public long workMillis(){
+        return work.get() / 1000000L;
+    }
+
+    //Publishes a finished start if it beats the best one, retrying when another start got in first
+    private void offer(Result r){
+        Result current = best.get();
+        while(r.betterThan(current)){
+            if(best.compareAndSet(current, r)){
+                return;
+            }
+            current = best.get();
+        }
+    }
+
+    //Builds and improves one tour
+    private Result run(int start){
+        long time = System.nanoTime();
+        int[] cities = start == 0 ? GreedyTSP.greedyCandidates(g, TwoOpt.NEIGHBORS)
+                : nearestNeighbor(new Random(seed * 1000003L + start));
+        Tour tour = new Tour(cities);
+        TwoOpt twoOpt = new TwoOpt(g, tour, neighbors);
+        OrOpt orOpt = new OrOpt(g, tour, neighbors);
+        do{
+            twoOpt.run();
+        }while(orOpt.run());
+        int[] result = tour.toArray();
+        work.addAndGet(System.nanoTime() - time);
+        return new Result(result, g.tourDistance(result), start);
+    }
+
+    /*
+    * Builds a randomized nearest neighbor tour. The neighbor lists give the
+    * next city in most steps; when all of a city's neighbors are visited
+    * the k-d tree finds the nearest unvisited city instead.
+    *
+    * Arguments:
+    *   random: the source of the first city and the detours
+    *
+    * Returns:
+    *   the tour in visiting order
+    *
+    */
+    private int[] nearestNeighbor(Random random){
+        int n = g.numberOfNodes();
+        int k = neighbors.length / n;
+        KdTree tree = new KdTree(g);
+        boolean[] live = new boolean[n];
+        java.util.Arrays.fill(live, true);
+        tree.setLive(live);
+
+        int[] tour = new int[n];
+        int current = random.nextInt(n);
+        tree.remove(current);
+        tour[0] = current;
+        for(int i = 1; i < n; i++){
+            int first = -1;
+            int second = -1;
+            for(int j = current * k; j < current * k + k && second == -1; j++){
+                int c = neighbors[j];
+                if(live[c]){
+                    if(first == -1)
+                        first = c;
+                    else
+                        second = c;
+                }
+            }
+            int next;
+            if(first == -1)
+                next = tree.nearestLive(current);
+            else if(second != -1 && random.nextDouble() < DETOUR)
+                next = second;
+            else
+                next = first;
+            tree.remove(next);
+            tour[i] = next;
+            current = next;
+        }
+        return tour;
+    }
+
+    /*
+    * Method: isInt
+    *
+    * Checks to see if the given string is an integer
+    *
+    * Arguments:
+    *   s: string to be checked
+    *
+    * Returns:
+    *   If s is an int, return true.
+    *   If s is not an int, return false.
+    *
+    */
+    public static boolean isInt(String s){
+        try{
+            Integer.parseInt(s);
+            return true;
+        }catch(NumberFormatException e){
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        DecimalFormat df = new DecimalFormat("0.00");
+        //Check input
+        if(args.length < 2 || args.length > 4){
+            System.out.println("Usage: java MultiStartTSP nodes seed [starts] [threads]");
+            System.exit(0);
+        }
+        for(String arg : args){
+            if(!isInt(arg)){
+                System.out.println("Command line args must be integers");
+                System.exit(0);
+            }
+        }
+
+        int nodes = Integer.parseInt(args[0]);
+        int seed = Integer.parseInt(args[1]);
+        int processors = Runtime.getRuntime().availableProcessors();
+        int threads = args.length == 4 ? Integer.parseInt(args[3]) : processors;
+        int starts = args.length >= 3 ? Integer.parseInt(args[2]) : 4 * threads;
+
+        if(nodes <= 0){
+            System.out.println("Number of vertices must be greater than 0");
+            System.exit(0);
+        }
+        if(starts <= 0 || threads <= 0){
+            System.out.println("Starts and threads must be greater than 0");
+            System.exit(0);
+        }
+
+        Graph g = new Graph(nodes, nodes > Graph.MATRIX_LIMIT);
+        g.generateCoords((long) seed);
+        g.generateAM();
+
+        if (nodes <= 10) {
+            g.printVertices();
+            g.printAM();
+        }
+
+        //Begin timer and algorithm
+        long time = System.currentTimeMillis();
+        MultiStartTSP solver = new MultiStartTSP(g, seed);
+        int[] tour = solver.solve(starts, threads);
+        long runtime = System.currentTimeMillis() - time;
+
+        //End timer
+
+        //Output results
+        System.out.printf("\nDistance using multi-start (best of %d, start %d): %s for path ",
+                starts, solver.bestStart(), df.format(g.tourDistance(tour)));
+        for (int v : tour){
+            System.out.printf("%d ", v);
+        }
+        System.out.println("0");
+        System.out.printf("Runtime for multi-start TSP   : %d milliseconds (%d milliseconds of work on %d threads)\n",
+                runtime, solver.workMillis(), threads);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+* OptimalCheck.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Checks the brute and half modes of OptimalTSP against a plain brute
+* force that sums every permutation from scratch, for 1 to 11 cities.
+* Both modes carry the cost of the fixed prefix down the recursion and
+* half also cuts every branch that visits 2 before 1, so each must still
+* find the optimal length, and the tour it returns must have that length.
+*
+* Exits with status 1 if any result differs.
+*
+* Usage: java OptimalCheck [seeds]
+* (by default 3 seeds for every number of cities)
+*
+*/
+
+public class OptimalCheck{
+
+    /*
+    * Finds the optimal tour length by trying every order of the cities
+    * 1..n-1 and adding up the whole tour each time
+    *
+    * Arguments:
+    *   g: the graph to be traversed
+    *
+    * Returns:
+    *   the length of the shortest tour starting and ending at vertex 0
+    *
+    */
+    static double bruteForce(Graph g){
+        int n = g.numberOfNodes();
+        int[] order = new int[n - 1];
+        for(int i = 0; i < n - 1; i++){
+            order[i] = i + 1;
+        }
+        return permute(order, 0, g);
+    }
+
+    //Returns the shortest tour over all orders of order[pos..]
+    private static double permute(int[] order, int pos, Graph g){
+        if(pos == order.length){
+            return OptimalTSP.totalDistance(order, g);
+        }
+        double best = Double.MAX_VALUE;
+        for(int i = pos; i < order.length; i++){
+            OptimalTSP.swap(order, pos, i);
+            best = Math.min(best, permute(order, pos + 1, g));
+            OptimalTSP.swap(order, pos, i);
+        }
+        return best;
+    }
+
+    //Checks two tour lengths for equality up to rounding of the sums
+    private static boolean same(double a, double b){
+        return Math.abs(a - b) <= 1e-9 * Math.max(1, Math.abs(b));
+    }
+
+    public static void main(String[] args){
+        if(args.length > 1 || (args.length == 1 && !GreedyTSP.isInt(args[0]))){
+            System.out.println("Usage: java OptimalCheck [seeds]");
+            System.exit(0);
+        }
+        int seeds = args.length == 1 ? Integer.parseInt(args[0]) : 3;
+        String[] modes = {"brute", "half"};
+        int checked = 0;
+        int failed = 0;
+
+        for(int n = 1; n <= 11; n++){
+            for(int seed = 1; seed <= seeds; seed++){
+                Graph g = new Graph(n);
+                g.generateCoords(seed);
+                g.generateAM();
+                double expected = bruteForce(g);
+
+                for(String mode : modes){
+                    checked++;
+                    TspResult result = new OptimalTSP(mode).solve(g);
+                    double walked = g.tourDistance(result.getTour());
+                    if(!same(result.getLength(), expected) || !same(walked, expected)){
+                        System.out.println(mode + " with " + n + " cities, seed " + seed + ": found "
+                                + result.getLength() + " (tour " + walked + "), brute force " + expected);
+                        failed++;
+                    }
+                }
+            }
+        }
+
+        System.out.println(checked + " searches compared, " + failed + " failures");
+        if(failed > 0){
+            System.exit(1);
+        }
+    }
+}
@@ -8,13 +8,32 @@
 * the number of cities is less than or equal to 10, a list of the
 * x, y coordinates as well as an adjacency matrix will be printed.
 * If the number of cities is less than or equal to 5, all possible
-* paths will be printed out in lexicographic order.
+* paths will be printed out in lexicographic order. A TSPLIB or CSV
+* file (see TspLoader) may be given in place of n and the seed.
+*
+* An optional third argument selects the search engine:
+*	brute: enumerate every permutation (default, up to 13 cities)
+*	half:  enumerate only one direction of every tour (up to 13 cities)
+*	dp:    Held-Karp dynamic programming over subsets (up to 25 cities,
+*	       2^(n-1) * (n-1) * 8 bytes of heap)
+*	bnb:   branch and bound with spanning tree lower bounds (up to 26 cities)
+*	parallel: branch and bound split into fork-join tasks (up to 26 cities)
+*
+* The bnb limit is measured: random instances of 26 cities take up to about
+* 10 seconds on one core, while some of 28 cities run for minutes.
+*
+* The searches are instance methods keeping their best tour in the
+* instance, so every thread that solves an instance uses its own
+* OptimalTSP object.
 * 
 * Known issues:
 * Will not print in lexicographical order
 */
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 import java.lang.*;
 import java.io.*;
 import java.lang.System;
@@ -22,13 +41,102 @@ import java.text.DecimalFormat;
 
 
 
-public class OptimalTSP{
+public class OptimalTSP implements TspSolver{
+
+	//Per solver, a DecimalFormat must not be shared between threads
+	private DecimalFormat df = new DecimalFormat("0.00");
+
+	private final String mode;
+	private boolean printPaths;
+	private int minOrder[];
+	private double min;
+	private int runthroughs = 0;
+
+	//Scratch space of the spanning tree bound, sized per search
+	private int boundVerts[];
+	private double boundKeys[];
+
+	//Creates a solver that enumerates every permutation
+	public OptimalTSP(){
+		this("brute");
+	}
+
+	/*
+	* Constructor for the OptimalTSP solver
+	*
+	* Arguments:
+	*	mode: brute, half, dp, bnb or parallel
+	*
+	*/
+	public OptimalTSP(String mode){
+		if(!mode.equals("brute") && !mode.equals("half") && !mode.equals("dp")
+				&& !mode.equals("bnb") && !mode.equals("parallel")){
+			throw new IllegalArgumentException("mode must be one of: brute, half, dp, bnb, parallel");
+		}
+		this.mode = mode;
+	}
+
+	//Makes the brute force search print every path of graphs with at most 5 nodes
+	public void setPrintPaths(boolean printPaths){
+		this.printPaths = printPaths;
+	}
+
+	public String name(){
+		return "optimal";
+	}
+
+	/*
+	* Finds an optimal tour with the solver's search
+	*
+	* Arguments:
+	*	g: the graph to be traversed
+	*
+	* Returns: the tour with the single phase search
+	*
+	*/
+	public TspResult solve(Graph g){
+		g.beginSolve();
+		try{
+			int nodes = g.numberOfNodes();
+			int nodeA[] = new int[nodes - 1];
+			for(int i = 0; i < nodes - 1; i++){
+				nodeA[i] = i + 1;
+			}
+			runthroughs = 0;
+			min = 0;
+			minOrder = nodeA.clone();
+
+			long start = System.nanoTime();
+			if(mode.equals("dp")){
+				heldKarp(nodes, g);
+			}else if(mode.equals("bnb")){
+				branchAndBound(nodeA, g);
+			}else if(mode.equals("parallel")){
+				parallel(nodeA, g);
+			}else if(mode.equals("half")){
+				half(nodeA, g);
+			}else{
+				optimal(nodeA, 0, nodes, g);
+			}
+			long done = System.nanoTime();
+
+			int tour[] = new int[nodes];
+			System.arraycopy(minOrder, 0, tour, 1, nodes - 1);
+			return new TspResult(tour, min, new String[]{"search"}, new long[]{done - start});
+		}finally{
+			g.endSolve();
+		}
+	}
 
-	static DecimalFormat df = new DecimalFormat("0.00");
+	//Returns the length of the best tour found by the last search
+	public double getMin(){
+		return min;
+	}
 
-	private static int minOrder[];
-	private static double min;
-	private static int runthroughs = 0;
+	//Returns the best tour found by the last search, without the vertex 0 at either end
+	public int[] getMinOrder(){
+		return minOrder;
+	}
 
 
 	/*
@@ -43,22 +151,13 @@ public class OptimalTSP{
 	*	
 	*/
 	public static double totalDistance(int[] order, Graph g){
-		double am[][] = g.getAM();
-		double tDistance = am[0][order[0]];
+		double tDistance = 0;
+		int last = 0;
 		for(int i = 0; i < order.length; i++){
-			int start = order[i];
-			int end;
-			
-			if(i == order.length - 1){
-				end = 0;
-			}else{
-				end = order[i+1];
-			}
-
-			tDistance += am[start][end];
-
+			tDistance += g.getWeight(last, order[i]);
+			last = order[i];
 		}
-		return tDistance;
+		return tDistance + g.getWeight(last, 0);
 	}
 
 	/*
@@ -71,11 +170,36 @@ public class OptimalTSP{
 	*	g: the graph to be traversed
 	*	
 	*/
-	public static void optimal(int[] numbers, int pos, int nodes, Graph g){
+	public void optimal(int[] numbers, int pos, int nodes, Graph g){
+		double cost = 0;
+		int last = 0;
+		for(int i = 0; i < pos; i++){
+			cost += g.getWeight(last, numbers[i]);
+			last = numbers[i];
+		}
+		optimal(numbers, pos, last, cost, nodes, g);
+	}
+
+	/*
+	* Same enumeration as optimal(), carrying the distance of the fixed
+	* prefix down the recursion. Each step adds one edge, so a leaf only has
+	* to add its last two edges instead of summing the whole tour. The sums
+	* are taken in the same order as totalDistance(), so the distances are
+	* identical.
+	*
+	* Arguments: 
+	*	numbers: the nodes, positions before pos are already fixed
+	*	pos: the index of the next value to be swapped
+	*	last: the last node of the fixed prefix
+	*	cost: the distance travelled along the fixed prefix
+	*	nodes: the number of nodes in the graph
+	*	g: the graph to be traversed
+	*	
+	*/
+	private void optimal(int[] numbers, int pos, int last, double cost, int nodes, Graph g){
 		int size = numbers.length;
-		double d;
 		if(size == pos + 1){
-			d = totalDistance(numbers, g);
+			double d = cost + g.getWeight(last, numbers[pos]) + g.getWeight(numbers[pos], 0);
 			if(runthroughs == 0){
 				min = d;
 				minOrder = numbers.clone();
@@ -84,7 +208,7 @@ public class OptimalTSP{
 				min = d;
 				minOrder = numbers.clone();
 			}
-			if(nodes <= 5){
+			if(printPaths && nodes <= 5){
 				//print out list of all possible paths
 				System.out.printf("Path: 0");
 				for(int j = 0; j < nodes - 1; j++){
@@ -96,11 +220,400 @@ public class OptimalTSP{
 		}else{
 			for(int i = pos; i < size; i++){
 				swap(numbers, pos, i);
-				optimal(numbers, pos+1, nodes, g);
+				optimal(numbers, pos+1, numbers[pos], cost + g.getWeight(last, numbers[pos]), nodes, g);
+				swap(numbers, pos, i);
+			}
+		}
+	}
+
+	/*
+	* Enumerates half of the permutations. A tour and its reversal have the
+	* same length, and exactly one of them visits city 1 before city 2, so
+	* only those orders are completed: a branch that places 2 while 1 is
+	* still unvisited is cut at once. Sets min and minOrder like optimal().
+	*
+	* Arguments: 
+	*	numbers: an array containing the nodes that can be traveled
+	*	g: the graph to be traversed
+	*	
+	*/
+	public void half(int[] numbers, Graph g){
+		runthroughs = 0;
+		half(numbers, 0, 0, 0, false, g);
+	}
+
+	/*
+	* Recursion of half(), carrying the prefix distance as optimal() does
+	*
+	* Arguments: 
+	*	numbers: the nodes, positions before pos are already fixed
+	*	pos: the index of the next value to be swapped
+	*	last: the last node of the fixed prefix
+	*	cost: the distance travelled along the fixed prefix
+	*	seenOne: whether city 1 is in the fixed prefix
+	*	g: the graph to be traversed
+	*	
+	*/
+	private void half(int[] numbers, int pos, int last, double cost, boolean seenOne, Graph g){
+		int size = numbers.length;
+		if(size == pos + 1){
+			//2 is never placed before 1, so the last node cannot break the rule
+			double d = cost + g.getWeight(last, numbers[pos]) + g.getWeight(numbers[pos], 0);
+			if(runthroughs == 0 || d < min){
+				min = d;
+				minOrder = numbers.clone();
+				runthroughs++;
+			}
+			return;
+		}
+		for(int i = pos; i < size; i++){
+			int next = numbers[i];
+			if(next == 2 && !seenOne){
+				continue;
+			}
+			swap(numbers, pos, i);
+			half(numbers, pos+1, next, cost + g.getWeight(last, next), seenOne || next == 1, g);
+			swap(numbers, pos, i);
+		}
+	}
+
+	/*
+	* Calculates the optimal route with the Held-Karp dynamic program. The
+	* table is indexed by (subset of cities 1..n-1, last city of the subset)
+	* and stored in one flat double array, so memory is exactly
+	* 2^(n-1) * (n-1) * 8 bytes (see heldKarpBytes). No predecessors are
+	* kept, the tour is rebuilt by walking back through the costs. Sets min
+	* and minOrder like optimal().
+	*
+	* Arguments: 
+	*	nodes: the number of nodes in the graph
+	*	g: the graph to be traversed
+	*	
+	*/
+	public void heldKarp(int nodes, Graph g){
+		int m = nodes - 1;
+		minOrder = new int[Math.max(m, 0)];
+		min = 0;
+		if(m <= 0){
+			return;
+		}
+		long bytes = heldKarpBytes(nodes);
+		if(bytes > availableMemory()){
+			throw new IllegalArgumentException("Held-Karp needs " + (bytes >> 20) + " MB for "
+					+ nodes + " vertices but only " + (availableMemory() >> 20) + " MB of heap are free");
+		}
+
+		//local copy of the weights, city c is bit c-1 of a subset
+		double w[] = new double[nodes * nodes];
+		for(int i = 0; i < nodes; i++){
+			for(int j = 0; j < nodes; j++){
+				w[i * nodes + j] = g.getWeight(i, j);
+			}
+		}
+
+		int full = 1 << m;
+		double cost[] = new double[full * m];
+		Arrays.fill(cost, Double.MAX_VALUE);
+		for(int j = 0; j < m; j++){
+			cost[(1 << j) * m + j] = w[j + 1];
+		}
+
+		//push every reachable state forward to its supersets
+		for(int mask = 1; mask < full; mask++){
+			int base = mask * m;
+			for(int j = 0; j < m; j++){
+				double c = cost[base + j];
+				if((mask & (1 << j)) == 0 || c == Double.MAX_VALUE){
+					continue;
+				}
+				int row = (j + 1) * nodes + 1;
+				int rest = ~mask & (full - 1);
+				while(rest != 0){
+					int k = Integer.numberOfTrailingZeros(rest);
+					rest &= rest - 1;
+					int next = (mask | (1 << k)) * m + k;
+					double d = c + w[row + k];
+					if(d < cost[next]){
+						cost[next] = d;
+					}
+				}
+			}
+		}
+
+		//close the tour back to vertex 0
+		int last = 0;
+		double best = Double.MAX_VALUE;
+		int base = (full - 1) * m;
+		for(int j = 0; j < m; j++){
+			double d = cost[base + j] + w[(j + 1) * nodes];
+			if(d < best){
+				best = d;
+				last = j;
+			}
+		}
+		min = best;
+
+		//the predecessor of a state is the one whose cost plus the edge
+		//reproduces its cost exactly, since it was computed the same way
+		int mask = full - 1;
+		for(int i = m - 1; i > 0; i--){
+			minOrder[i] = last + 1;
+			double c = cost[mask * m + last];
+			mask &= ~(1 << last);
+			int col = (last + 1) * nodes + 1;
+			int rest = mask;
+			while(rest != 0){
+				int j = Integer.numberOfTrailingZeros(rest);
+				rest &= rest - 1;
+				if(cost[mask * m + j] + w[col + j] == c){
+					last = j;
+					break;
+				}
+			}
+		}
+		minOrder[0] = last + 1;
+	}
+
+	/*
+	* Calculates the size of the Held-Karp cost table
+	*
+	* Arguments: 
+	*	nodes: the number of nodes in the graph
+	*
+	* Returns: the bytes the table for the given number of nodes takes
+	*	
+	*/
+	public static long heldKarpBytes(int nodes){
+		int m = Math.max(nodes - 1, 0);
+		return (1L << m) * m * Double.BYTES;
+	}
+
+	//Returns the bytes the heap can still grow by
+	private static long availableMemory(){
+		Runtime rt = Runtime.getRuntime();
+		return rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+	}
+
+	/*
+	* Seeds the incumbent of the branch and bound search with the greedy tour
+	* and then runs the search from vertex 0.
+	*
+	* Arguments: 
+	*	numbers: an array containing the nodes that can be traveled
+	*	g: the graph to be traversed
+	*	
+	*/
+	public void branchAndBound(int[] numbers, Graph g){
+		seedIncumbent(numbers, g);
+		boundVerts = new int[numbers.length];
+		boundKeys = new double[numbers.length];
+		if(numbers.length > 0){
+			branchAndBound(numbers, 0, 0, 0, g);
+		}
+	}
+
+	/*
+	* Sets min and minOrder to the greedy tour when it is a valid tour, and
+	* to an unbounded incumbent otherwise.
+	*
+	* Arguments: 
+	*	numbers: an array containing the nodes that can be traveled
+	*	g: the graph to be traversed
+	*	
+	*/
+	private void seedIncumbent(int[] numbers, Graph g){
+		min = 0;
+		minOrder = numbers.clone();
+		if(numbers.length == 0){
+			return;
+		}
+		min = Double.MAX_VALUE;
+		int seed[] = GreedyTSP.greedyPacked(g, false);
+		if(seed.length == numbers.length + 1){
+			System.arraycopy(seed, 1, minOrder, 0, numbers.length);
+			min = totalDistance(minOrder, g);
+		}
+	}
+
+	/*
+	* Depth first branch and bound. The cost of the fixed prefix is carried
+	* down the recursion and a branch is cut as soon as that cost plus a lower
+	* bound on the remaining path can no longer beat the incumbent.
+	*
+	* Arguments: 
+	*	numbers: the nodes, positions before pos are already fixed
+	*	pos: the index of the next position to fill
+	*	last: the last node of the fixed prefix
+	*	cost: the distance travelled along the fixed prefix
+	*	g: the graph to be traversed
+	*	
+	*/
+	public void branchAndBound(int[] numbers, int pos, int last, double cost, Graph g){
+		int size = numbers.length;
+		if(pos == size){
+			double d = cost + g.getWeight(last, 0);
+			if(d < min){
+				min = d;
+				minOrder = numbers.clone();
+			}
+			return;
+		}
+		if(cost + lowerBound(numbers, pos, last, g, boundVerts, boundKeys) >= min){
+			return;
+		}
+		for(int i = pos; i < size; i++){
+			swap(numbers, pos, i);
+			double c = cost + g.getWeight(last, numbers[pos]);
+			if(c < min){
+				branchAndBound(numbers, pos + 1, numbers[pos], c, g);
+			}
+			swap(numbers, pos, i);
+		}
+	}
+
+	/*
+	* Lower bound on the cost of completing a partial tour. Any completion
+	* leaves last, visits every remaining node and returns to 0, so it costs
+	* at least a spanning tree of the remaining nodes plus the cheapest edge
+	* into them and the cheapest edge back to 0.
+	*
+	* Arguments: 
+	*	numbers: the nodes, positions from pos onwards are still unvisited
+	*	pos: the index of the first unvisited node
+	*	last: the last node of the fixed prefix
+	*	g: the graph to be traversed
+	*	verts, keys: scratch space of the spanning tree, one slot per node
+	*
+	* Returns: a lower bound on the remaining distance
+	*	
+	*/
+	private static double lowerBound(int[] numbers, int pos, int last, Graph g, int[] verts, double[] keys){
+		double in = Double.MAX_VALUE;
+		double out = Double.MAX_VALUE;
+		for(int i = pos; i < numbers.length; i++){
+			in = Math.min(in, g.getWeight(last, numbers[i]));
+			out = Math.min(out, g.getWeight(numbers[i], 0));
+		}
+		return MstTSP.mstCost(g, numbers, pos, numbers.length, verts, keys) + in + out;
+	}
+
+	/*
+	* Runs the branch and bound search in parallel. The permutation tree is
+	* split at the first one or two positions into fork-join tasks, each of
+	* which searches its subtree with a private copy of the nodes. All tasks
+	* share a single incumbent, so a tour found by one task immediately
+	* tightens the pruning of the others. Sets min and minOrder.
+	*
+	* Arguments: 
+	*	numbers: an array containing the nodes that can be traveled
+	*	g: the graph to be traversed
+	*	
+	*/
+	public void parallel(int[] numbers, Graph g){
+		seedIncumbent(numbers, g);
+		if(numbers.length == 0){
+			return;
+		}
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int depth = numbers.length >= pool.getParallelism() ? 1 : 2;
+		AtomicReference<Incumbent> best = new AtomicReference<Incumbent>(new Incumbent(min, minOrder));
+		pool.invoke(new SearchTask(numbers.clone(), 0, 0, 0, Math.min(depth, numbers.length), best, g));
+		min = best.get().distance;
+		minOrder = best.get().order;
+	}
+
+	/*
+	* An immutable best tour. Distance and order are always replaced
+	* together so that readers never see a mismatched pair.
+	*/
+	private static final class Incumbent{
+		final double distance;
+		final int order[];
+
+		Incumbent(double distance, int[] order){
+			this.distance = distance;
+			this.order = order;
+		}
+	}
+
+	/*
+	* A subtree of the permutation search. Tasks above the split depth fork
+	* one child per choice for the next position, tasks at the split depth
+	* run the sequential branch and bound on their own scratch arrays.
+	*/
+	private static final class SearchTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+
+		private final int numbers[];
+		private final int pos;
+		private final int last;
+		private final double cost;
+		private final int depth;
+		private final AtomicReference<Incumbent> best;
+		private final Graph g;
+		private int boundVerts[];
+		private double boundKeys[];
+
+		SearchTask(int[] numbers, int pos, int last, double cost, int depth,
+				AtomicReference<Incumbent> best, Graph g){
+			this.numbers = numbers;
+			this.pos = pos;
+			this.last = last;
+			this.cost = cost;
+			this.depth = depth;
+			this.best = best;
+			this.g = g;
+		}
+
+		@Override
+		protected void compute(){
+			if(pos == depth){
+				boundVerts = new int[numbers.length];
+				boundKeys = new double[numbers.length];
+				search(pos, last, cost);
+				return;
+			}
+			ArrayList<SearchTask> tasks = new ArrayList<SearchTask>();
+			for(int i = pos; i < numbers.length; i++){
+				int child[] = numbers.clone();
+				swap(child, pos, i);
+				double c = cost + g.getWeight(last, child[pos]);
+				tasks.add(new SearchTask(child, pos + 1, child[pos], c, depth, best, g));
+			}
+			invokeAll(tasks);
+		}
+
+		//Same recursion as branchAndBound, against the shared incumbent
+		private void search(int pos, int last, double cost){
+			if(pos == numbers.length){
+				offer(cost + g.getWeight(last, 0));
+				return;
+			}
+			if(cost + lowerBound(numbers, pos, last, g, boundVerts, boundKeys) >= best.get().distance){
+				return;
+			}
+			for(int i = pos; i < numbers.length; i++){
+				swap(numbers, pos, i);
+				double c = cost + g.getWeight(last, numbers[pos]);
+				if(c < best.get().distance){
+					search(pos + 1, numbers[pos], c);
+				}
 				swap(numbers, pos, i);
 			}
 		}
+
+		//Publishes the current order if it beats the incumbent
+		private void offer(double d){
+			Incumbent current = best.get();
+			while(d < current.distance){
+				if(best.compareAndSet(current, new Incumbent(d, numbers.clone()))){
+					return;
+				}
+				current = best.get();
+			}
+		}
 	}
+
 	/*
 	* Swaps 2 elements in an array
 	*
@@ -116,28 +629,58 @@ public class OptimalTSP{
 	}
 
 	public static void main(String args[]){
+		//A file name in place of n and seed loads the instance from the file
+		boolean fromFile = args.length > 0 && !GreedyTSP.isInt(args[0]);
+		int given = fromFile ? 1 : 2;
+
 		//Check input
-		if(args.length != 2){
-			System.out.println("Usage: java OptimalTSP n seed");
+		if(args.length != given && args.length != given + 1){
+			System.out.println("Usage: java OptimalTSP (n seed | file) [brute|half|dp|bnb|parallel]");
 			System.exit(0);
 		}
 
-		int nodes = Integer.parseInt(args[0]);
-		int seed = Integer.parseInt(args[1]);
+		Graph g = null;
+		int nodes;
+		int seed = 0;
+		if(fromFile){
+			g = TspLoader.loadOrExit(args[0]);
+			nodes = g.numberOfNodes();
+		}else{
+			nodes = Integer.parseInt(args[0]);
+			seed = Integer.parseInt(args[1]);
+		}
+		String mode = args.length == given + 1 ? args[given] : "brute";
 
-		if(nodes <= 0 || nodes >= 14){
+		if(!mode.equals("brute") && !mode.equals("half") && !mode.equals("dp")
+				&& !mode.equals("bnb") && !mode.equals("parallel")){
+			System.out.println("Mode must be one of: brute, half, dp, bnb, parallel");
+			System.exit(0);
+		}
+		if((mode.equals("brute") || mode.equals("half")) && (nodes <= 0 || nodes >= 14)){
 			System.out.println("Number of vertices must be between 1 and 13");
 			System.exit(0);
 		}
-		if(seed != (int) seed){
-			System.out.println("Command line args must be integers");
+		if(mode.equals("dp") && (nodes <= 0 || nodes >= 26)){
+			System.out.println("Number of vertices must be between 1 and 25");
+			System.exit(0);
+		}
+		if(mode.equals("dp") && heldKarpBytes(nodes) > availableMemory()){
+			System.out.println("Held-Karp on " + nodes + " vertices needs "
+					+ (heldKarpBytes(nodes) >> 20) + " MB, but the heap only has "
+					+ (availableMemory() >> 20) + " MB free; raise it with -Xmx or use bnb");
+			System.exit(1);
+		}
+		if((mode.equals("bnb") || mode.equals("parallel")) && (nodes <= 0 || nodes >= 27)){
+			System.out.println("Number of vertices must be between 1 and 26");
 			System.exit(0);
 		}
 
 		//Generate and populate graph
-		Graph g = new Graph(nodes);
-		g.generateCoords((long) seed);
-		g.generateAM();
+		if(g == null){
+			g = new Graph(nodes);
+			g.generateCoords(seed);
+			g.generateAM();
+		}
 
 		if(nodes <= 10){
 			//print out list of x, y coordinates and the graph
@@ -145,27 +688,11 @@ public class OptimalTSP{
 			g.printAM();
 		}
 		
-		int nodeA[] = new int[nodes-1];
-		minOrder = new int[nodes-1];
-
-		//create initial order
-		for(int i = 0; i < nodes-1; i++){
-			nodeA[i] = i+1;
-		}		
-		//Begin timer and algorithm
-		long time = System.currentTimeMillis();
-		optimal(nodeA, 0, nodes, g);
-		long runtime = System.currentTimeMillis() - time;
-		//End timer
+		OptimalTSP solver = new OptimalTSP(mode);
+		solver.setPrintPaths(true);
+		TspResult result = solver.solve(g);
 
 		//Output results
-		System.out.printf("\nOptimal distance: " + df.format(min));
-
-		System.out.printf(" for path 0");
-		for(int j = 0; j < nodes - 1; j++){
-			System.out.printf(" %d", minOrder[j]);
-		}
-		System.out.println(" 0");
-		System.out.printf("Runtime for optimal TSP   : %d milliseconds\n", runtime);
+		new TspReporter.Console().report(solver, g, result);
 	}
 }
\ No newline at end of file
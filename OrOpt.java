@@ -0,0 +1,196 @@
+/*
+* OrOpt.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Or-opt local search for an existing tour. A move cuts a segment of one
+* to three consecutive cities out of the tour, closes the gap, and puts
+* the segment back between two other neighboring cities, either way
+* round. This is the restricted form of 3-opt that keeps one of the three
+* paths intact, and it is carried out as two or three 2-opt moves on the
+* same Tour. Like TwoOpt, only insertion points next to one of the
+* segment ends' nearest neighbors are tried and cities are switched off
+* with don't-look bits.
+*
+*/
+
+public class OrOpt{
+
+    //Longest segment that is moved
+    public static final int MAX_SEGMENT = 3;
+
+    private Graph g;
+    private Tour tour;
+    private int neighbors[];
+    private int k;
+    private int queue[];
+    private boolean queued[];
+    private int head;
+    private int count;
+
+    /*
+    * Prepares a search over the given tour
+    *
+    * Arguments:
+    *   g: the graph the tour belongs to
+    *   tour: the tour to improve, it is changed in place
+    *   neighbors: the neighbor lists, k per city, closest first
+    *
+    */
+    public OrOpt(Graph g, Tour tour, int[] neighbors){
+        int n = tour.size();
+        this.g = g;
+        this.tour = tour;
+        this.neighbors = neighbors;
+        k = n == 0 ? 0 : neighbors.length / n;
+        queue = new int[n];
+        queued = new boolean[n];
+    }
+
+    /*
+    * Improves a tour with 2-opt and Or-opt moves until neither finds one
+    *
+    * Arguments:
+    *   g: the graph the tour belongs to
+    *   cities: the tour, every vertex exactly once
+    *
+    * Returns:
+    *   the improved tour, starting at vertex 0
+    *
+    */
+    public static int[] improve(Graph g, int[] cities){
+        Tour tour = new Tour(cities);
+        int[] near = new KdTree(g).neighborLists(TwoOpt.NEIGHBORS);
+        TwoOpt twoOpt = new TwoOpt(g, tour, near);
+        OrOpt orOpt = new OrOpt(g, tour, near);
+        do{
+            twoOpt.run();
+        }while(orOpt.run());
+        return tour.toArray();
+    }
+
+    /*
+    * Runs until every city has its don't-look bit set
+    *
+    * Returns:
+    *   true if the tour was changed
+    *
+    */
+    public boolean run(){
+        boolean changed = false;
+        for(int v = 0; v < tour.size(); v++){
+            push(v);
+        }
+        while(count > 0){
+            int a = queue[head];
+            queued[a] = false;
+            head = head + 1 == queue.length ? 0 : head + 1;
+            count--;
+            if(improveCity(a)){
+                push(a);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    //Switches a city's don't-look bit off
+    void push(int v){
+        if(!queued[v]){
+            queued[v] = true;
+            queue[(head + count) % queue.length] = v;
+            count++;
+        }
+    }
+
+    /*
+    * Tries to move each segment that starts at a city and runs forward
+    * for up to MAX_SEGMENT cities, and applies the first improving move
+    *
+    * Arguments:
+    *   s1: the first city of the segments
+    *
+    * Returns:
+    *   true if the tour was changed
+    *
+    */
+    private boolean improveCity(int s1){
+        int n = tour.size();
+        int s2 = s1;
+        for(int length = 1; length <= MAX_SEGMENT && length + 2 < n; length++){
+            if(length > 1)
+                s2 = tour.next(s2);
+            int p = tour.prev(s1);
+            int nx = tour.next(s2);
+            double removed = g.getWeight(p, s1) + g.getWeight(s2, nx) - g.getWeight(p, nx);
+            if(removed <= TwoOpt.EPSILON)
+                continue;
+            if(tryInsert(s1, s2, s1, p, nx, removed) || tryInsert(s1, s2, s2, p, nx, removed))
+                return true;
+        }
+        return false;
+    }
+
+    /*
+    * Looks for an insertion point for the segment s1..s2 next to a
+    * neighbor of one of its ends
+    *
+    * Arguments:
+    *   s1, s2: the first and last city of the segment
+    *   end: s1 or s2, the end whose neighbor list is searched
+    *   p, nx: the cities before and after the segment
+    *   removed: what cutting the segment out and closing the gap saves
+    *
+    * Returns:
+    *   true if a move was applied
+    *
+    */
+    private boolean tryInsert(int s1, int s2, int end, int p, int nx, double removed){
+        for(int i = end * k; i < end * k + k; i++){
+            int x = neighbors[i];
+            if(removed - g.getWeight(end, x) <= TwoOpt.EPSILON)
+                break;
+            if(tour.between(s1, x, s2))
+                continue;
+            //x may be on either side of the gap the segment goes into
+            if(tryEdge(s1, s2, p, nx, x, tour.next(x), removed)
+                    || tryEdge(s1, s2, p, nx, tour.prev(x), x, removed))
+                return true;
+        }
+        return false;
+    }
+
+    /*
+    * Evaluates putting the segment s1..s2 between c and d = next(c) both
+    * ways round and applies the better one if it shortens the tour
+    *
+    * Returns:
+    *   true if the move was applied
+    *
+    */
+    private boolean tryEdge(int s1, int s2, int p, int nx, int c, int d, double removed){
+        if(d == p || tour.between(s1, c, s2) || tour.between(s1, d, s2))
+            return false;
+        double cd = g.getWeight(c, d);
+        double forward = g.getWeight(c, s1) + g.getWeight(s2, d) - cd;
+        double reversed = g.getWeight(c, s2) + g.getWeight(s1, d) - cd;
+        boolean reverse = reversed < forward;
+        if(removed - Math.min(forward, reversed) <= TwoOpt.EPSILON)
+            return false;
+
+        //p s1..s2 nx .. c d  ->  p c .. nx s2..s1 d  ->  p nx .. c s2..s1 d
+        tour.twoOptMove(p, s1, c, d);
+        tour.twoOptMove(p, c, nx, s2);
+        if(!reverse){
+            //c s2..s1 d  ->  c s1..s2 d
+            tour.twoOptMove(c, s2, s1, d);
+        }
+        push(p);
+        push(nx);
+        push(c);
+        push(d);
+        push(s1);
+        push(s2);
+        return true;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+* PackedEdges.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* A list of graph edges stored as primitives instead of Edge objects. Each
+* edge takes a float weight and a long holding its two vertices, 12 bytes
+* in total against more than 50 for an Edge in an ArrayList. The float is only
+* used to order the edges quickly; exact weights are read back from the
+* graph, which also settles edges whose float weights are equal. The
+* sorted order is therefore exactly the weight > column > row order of
+* Edge.compare.
+*
+* Besides the comparison sort there is a radix sort. Weights are never
+* negative, so the raw IEEE-754 bits of the float weights order the same
+* way as the floats themselves, and the (column, row) pair is already a
+* non-negative long. Sorting by the pair and then by the weight bits with
+* stable counting passes therefore gives the same order in linear time.
+*
+*/
+
+public class PackedEdges implements Quicksort.Sortable{
+
+    private Graph graph;
+    private float weights[];
+    private long pairs[];
+    private int size;
+
+    /*
+    * Creates an empty list
+    *
+    * Arguments:
+    *   g: the graph the edges belong to
+    *   capacity: the maximum number of edges
+    *
+    */
+    public PackedEdges(Graph g, int capacity){
+        graph = g;
+        weights = new float[capacity];
+        pairs = new long[capacity];
+    }
+
+    /*
+    * Creates the list of all edges of the complete graph, in the same
+    * order as Graph.generateEdges
+    *
+    * Arguments:
+    *   g: the graph the edges belong to
+    *
+    */
+    public PackedEdges(Graph g){
+        this(g, allPairs(g.numberOfNodes()));
+        int n = g.numberOfNodes();
+        for(int row = 0; row < n; row++){
+            for(int column = 0; column < row; column++){
+                add(row, column);
+            }
+        }
+    }
+
+    //Number of edges of the complete graph, checked to fit in one array
+    private static int allPairs(int n){
+        if(n > Graph.TRIANGLE_LIMIT)
+            throw new IllegalArgumentException("all edges can be listed for at most " + Graph.TRIANGLE_LIMIT
+                    + " vertices, not " + n);
+        return (int) ((long) n * (n - 1) / 2);
+    }
+
+    /*
+    * Appends an edge
+    *
+    * Arguments:
+    *   row: the first vertex
+    *   column: the second vertex
+    *
+    */
+    public void add(int row, int column){
+        weights[size] = (float) graph.getWeight(row, column);
+        pairs[size] = (long) column << 32 | row;
+        size++;
+    }
+
+    //Returns the number of edges
+    public int size(){
+        return size;
+    }
+
+    //Returns the row vertex of edge i
+    public int row(int i){
+        return (int) pairs[i];
+    }
+
+    //Returns the column vertex of edge i
+    public int column(int i){
+        return (int) (pairs[i] >>> 32);
+    }
+
+    //Returns the exact weight of edge i
+    public double weight(int i){
+        return graph.getWeight(row(i), column(i));
+    }
+
+    /*
+    * Compares two edges by weight, then column, then row
+    *
+    * Returns:
+    *   a negative integer, zero, or a positive integer if edge i is lighter
+    *   than, equal to, or heavier than edge j
+    *
+    */
+    public int compare(int i, int j){
+        if(weights[i] != weights[j]){
+            return weights[i] < weights[j] ? -1 : 1;
+        }
+        if(pairs[i] == pairs[j]){
+            return 0;
+        }
+        int value = Double.compare(weight(i), weight(j));
+        if(value != 0){
+            return value;
+        }
+        return Long.compare(pairs[i], pairs[j]);
+    }
+
+    //Swaps two edges
+    public void swap(int i, int j){
+        float w = weights[i];
+        weights[i] = weights[j];
+        weights[j] = w;
+        long p = pairs[i];
+        pairs[i] = pairs[j];
+        pairs[j] = p;
+    }
+
+    //Sorts the edges in place by weight, then column, then row
+    public void sort(){
+        Quicksort.sort(this, size);
+    }
+
+    /*
+    * LSD radix sort with 8 bit digits, first over the vertex pair and then
+    * over the float bits. Passes where every edge has the same digit are
+    * skipped, so small graphs pay only for the bits their indices use.
+    * Edges whose floats are equal but whose exact weights differ are put
+    * in order afterwards. Needs a second copy of both arrays.
+    */
+    public void radixSort(){
+        float[] otherWeights = new float[size];
+        long[] otherPairs = new long[size];
+        int[] count = new int[257];
+        boolean swapped = false;
+
+        for(int shift = 0; shift < 96; shift += 8){
+            float[] fromW = swapped ? otherWeights : weights;
+            long[] fromP = swapped ? otherPairs : pairs;
+            float[] toW = swapped ? weights : otherWeights;
+            long[] toP = swapped ? pairs : otherPairs;
+
+            java.util.Arrays.fill(count, 0);
+            for(int i = 0; i < size; i++){
+                count[digit(fromW[i], fromP[i], shift) + 1]++;
+            }
+            if(skip(count)){
+                continue;
+            }
+            for(int d = 0; d < 256; d++){
+                count[d + 1] += count[d];
+            }
+            for(int i = 0; i < size; i++){
+                int at = count[digit(fromW[i], fromP[i], shift)]++;
+                toW[at] = fromW[i];
+                toP[at] = fromP[i];
+            }
+            swapped = !swapped;
+        }
+        if(swapped){
+            System.arraycopy(otherWeights, 0, weights, 0, size);
+            System.arraycopy(otherPairs, 0, pairs, 0, size);
+        }
+
+        //settle floats that round two different weights to the same value
+        double previous = -1;
+        for(int i = 1; i < size; i++){
+            if(weights[i] != weights[i - 1]){
+                previous = -1;
+                continue;
+            }
+            if(previous < 0)
+                previous = weight(i - 1);
+            double current = weight(i);
+            if(current < previous){
+                for(int j = i; j > 0 && compare(j, j - 1) < 0; j--){
+                    swap(j, j - 1);
+                }
+                current = weight(i);
+            }
+            previous = current;
+        }
+        assert isSorted();
+    }
+
+    //The 8 bit digit of an edge's key at the given bit, pair bits first
+    private static int digit(float weight, long pair, int shift){
+        if(shift < 64)
+            return (int) (pair >>> shift) & 0xFF;
+        return Float.floatToRawIntBits(weight) >>> (shift - 64) & 0xFF;
+    }
+
+    //Checks if one digit value holds every edge, making the pass a no-op
+    private boolean skip(int[] count){
+        for(int d = 1; d <= 256; d++){
+            if(count[d] != 0)
+                return count[d] == size;
+        }
+        return true;
+    }
+
+    //Checks that the edges are in weight > column > row order
+    public boolean isSorted(){
+        for(int i = 1; i < size; i++){
+            if(compare(i - 1, i) > 0)
+                return false;
+        }
+        return true;
+    }
+}
@@ -3,7 +3,8 @@
 * 
 * Author: Derrick Lee|dtl4734
 *
-* Contains the methods for union-find and path compression.
+* Contains the methods for union-find and path compression. See
+* DisjointSet for the version with union by size that the solvers use.
 * 
 */
 public class PathCompression{
@@ -33,12 +34,16 @@ public class PathCompression{
     * 
     */
 	public int find(int i){
-		if(x[i] < 0)
-			return i;
-		else{
-			x[i] = find(x[i]);
-			return x[i];
+		int root = i;
+		while(x[root] >= 0)
+			root = x[root];
+		//second pass points the whole path at the root
+		while(x[i] >= 0){
+			int next = x[i];
+			x[i] = root;
+			i = next;
 		}
+		return root;
 	}
 	/*
     * Adds two arrays together
@@ -70,6 +75,6 @@ public class PathCompression{
 	* 	true if the union has created a cycle. false if it has not
 	*/
 	public static boolean createsCycle(int i, int j){
-		return i > 0 && j > 0 && i == j;
+		return i >= 0 && j >= 0 && i == j;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,470 @@
+/*
+* PerfectMatching.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Perfect matchings on an even set of vertices of the complete graph, as
+* needed by Christofides' algorithm.
+*
+* minimum() runs Edmonds' blossom algorithm for maximum weight matchings in
+* its O(m^3) form, with dual variables and slack kept per vertex and per
+* blossom. Distances are rounded to multiples of 1/SCALE so the duals stay
+* exact integers, and every edge gets the weight C - w for a constant C
+* above all weights. All weights are then positive, so on a complete graph
+* the maximum weight matching is perfect, and among perfect matchings it
+* has the smallest rounded total. The matching is therefore minimum only
+* up to that rounding: its real total is at most m / (2 * SCALE) above the
+* true minimum, and exactly minimum when the distances are whole numbers,
+* as with the TSPLIB metrics. It needs O(m^2) memory.
+*
+* greedy() repeatedly matches the closest pair of unmatched vertices,
+* using a k-d tree, and is near-linear.
+*
+*/
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+
+public class PerfectMatching{
+
+    //Distances are multiplied by this before rounding to integers
+    static final double SCALE = 1024;
+
+    //Vertices are numbered 1 to m, blossoms m+1 to size, 0 means none
+    private int m;
+    private int size;
+    private int edgeU[][];
+    private int edgeV[][];
+    private long weight[][];
+    private long label[];
+    private int match[];
+    private int slack[];
+    private int top[];
+    private int parent[];
+    private int flowerFrom[][];
+    private int side[];
+    private int visited[];
+    private int stamp;
+    private ArrayList<ArrayList<Integer>> flower;
+    private ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+
+    /*
+    * Finds a minimum weight perfect matching
+    *
+    * Arguments:
+    *   g: the graph the vertices belong to
+    *   vertices: an even number of distinct vertices
+    *
+    * Returns:
+    *   for each entry of vertices, the index of the entry it is matched to
+    *
+    */
+    public static int[] minimum(Graph g, int[] vertices){
+        int m = vertices.length;
+        PerfectMatching pm = new PerfectMatching(m);
+        long[][] scaled = new long[m][m];
+        long max = 0;
+        for(int i = 0; i < m; i++){
+            for(int j = 0; j < i; j++){
+                scaled[i][j] = Math.round(g.getWeight(vertices[i], vertices[j]) * SCALE);
+                max = Math.max(max, scaled[i][j]);
+            }
+        }
+        for(int i = 0; i < m; i++){
+            for(int j = 0; j < i; j++){
+                pm.weight[i + 1][j + 1] = pm.weight[j + 1][i + 1] = max + 1 - scaled[i][j];
+            }
+        }
+        pm.solve();
+
+        int[] mate = new int[m];
+        for(int i = 0; i < m; i++){
+            mate[i] = pm.match[i + 1] - 1;
+        }
+        return mate;
+    }
+
+    /*
+    * Finds a perfect matching by always matching the closest remaining
+    * pair. Each vertex keeps its nearest unmatched partner in a heap, and
+    * the partner is looked up again when it turns out to be taken.
+    *
+    * Arguments:
+    *   g: the graph the vertices belong to
+    *   vertices: an even number of distinct vertices
+    *
+    * Returns:
+    *   for each entry of vertices, the index of the entry it is matched to
+    *
+    */
+    public static int[] greedy(Graph g, int[] vertices){
+        int n = g.numberOfNodes();
+        int m = vertices.length;
+        int[] index = new int[n];
+        boolean[] live = new boolean[n];
+        for(int i = 0; i < m; i++){
+            index[vertices[i]] = i;
+            live[vertices[i]] = true;
+        }
+        KdTree tree = new KdTree(g);
+        tree.setLive(live);
+
+        int[] nearest = new int[n];
+        IndexedHeap heap = new IndexedHeap(n, 4);
+        for(int v : vertices){
+            nearest[v] = tree.nearestLive(v);
+            heap.add(v, tree.distance2(v, nearest[v]));
+        }
+        int[] mate = new int[m];
+        while(!heap.isEmpty()){
+            int u = heap.remove();
+            if(!live[u]){
+                continue;
+            }
+            int v = nearest[u];
+            if(live[v]){
+                mate[index[u]] = index[v];
+                mate[index[v]] = index[u];
+                tree.remove(u);
+                tree.remove(v);
+            }else{
+                nearest[u] = tree.nearestLive(u);
+                heap.add(u, tree.distance2(u, nearest[u]));
+            }
+        }
+        return mate;
+    }
+
+    private PerfectMatching(int m){
+        this.m = m;
+        int n = 2 * m + 1;
+        edgeU = new int[n][n];
+        edgeV = new int[n][n];
+        weight = new long[n][n];
+        label = new long[n];
+        match = new int[n];
+        slack = new int[n];
+        top = new int[n];
+        parent = new int[n];
+        flowerFrom = new int[n][m + 1];
+        side = new int[n];
+        visited = new int[n];
+        flower = new ArrayList<ArrayList<Integer>>(n);
+        for(int u = 0; u < n; u++){
+            flower.add(new ArrayList<Integer>());
+            for(int v = 0; v < n; v++){
+                edgeU[u][v] = u;
+                edgeV[u][v] = v;
+            }
+        }
+    }
+
+    //Twice the reduced cost of the edge stored at [u][v], 0 when it is tight
+    private long dist(int u, int v){
+        return label[edgeU[u][v]] + label[edgeV[u][v]] - weight[u][v] * 2;
+    }
+
+    //Copies the edge stored at [fu][fv] to [tu][tv]
+    private void copyEdge(int tu, int tv, int fu, int fv){
+        edgeU[tu][tv] = edgeU[fu][fv];
+        edgeV[tu][tv] = edgeV[fu][fv];
+        weight[tu][tv] = weight[fu][fv];
+    }
+
+    private void updateSlack(int u, int x){
+        if(slack[x] == 0 || dist(u, x) < dist(slack[x], x)){
+            slack[x] = u;
+        }
+    }
+
+    private void setSlack(int x){
+        slack[x] = 0;
+        for(int u = 1; u <= m; u++){
+            if(weight[u][x] > 0 && top[u] != x && side[top[u]] == 0){
+                updateSlack(u, x);
+            }
+        }
+    }
+
+    private void push(int x){
+        if(x <= m){
+            queue.add(x);
+        }else{
+            for(int y : flower.get(x)){
+                push(y);
+            }
+        }
+    }
+
+    private void setTop(int x, int b){
+        top[x] = b;
+        if(x > m){
+            for(int y : flower.get(x)){
+                setTop(y, b);
+            }
+        }
+    }
+
+    //Position of xr in blossom b, flipping the blossom so the position is even
+    private int evenPosition(int b, int xr){
+        ArrayList<Integer> f = flower.get(b);
+        int pr = f.indexOf(xr);
+        if(pr % 2 == 1){
+            Collections.reverse(f.subList(1, f.size()));
+            return f.size() - pr;
+        }
+        return pr;
+    }
+
+    private void setMatch(int u, int v){
+        match[u] = edgeV[u][v];
+        if(u > m){
+            int xr = flowerFrom[u][edgeU[u][v]];
+            int pr = evenPosition(u, xr);
+            ArrayList<Integer> f = flower.get(u);
+            for(int i = 0; i < pr; i++){
+                setMatch(f.get(i), f.get(i ^ 1));
+            }
+            setMatch(xr, v);
+            Collections.rotate(f, -pr);
+        }
+    }
+
+    private void augment(int u, int v){
+        while(true){
+            int xnv = top[match[u]];
+            setMatch(u, v);
+            if(xnv == 0){
+                return;
+            }
+            setMatch(xnv, top[parent[xnv]]);
+            u = top[parent[xnv]];
+            v = xnv;
+        }
+    }
+
+    private int lowestCommonAncestor(int u, int v){
+        stamp++;
+        while(u != 0 || v != 0){
+            if(u != 0){
+                if(visited[u] == stamp){
+                    return u;
+                }
+                visited[u] = stamp;
+                u = top[match[u]];
+                if(u != 0){
+                    u = top[parent[u]];
+                }
+            }
+            int t = u;
+            u = v;
+            v = t;
+        }
+        return 0;
+    }
+
+    private void addBlossom(int u, int lca, int v){
+        int b = m + 1;
+        while(b <= size && top[b] != 0){
+            b++;
+        }
+        if(b > size){
+            size++;
+        }
+        label[b] = 0;
+        side[b] = 0;
+        match[b] = match[lca];
+        ArrayList<Integer> f = flower.get(b);
+        f.clear();
+        f.add(lca);
+        for(int x = u, y; x != lca; x = top[parent[y]]){
+            f.add(x);
+            y = top[match[x]];
+            f.add(y);
+            push(y);
+        }
+        Collections.reverse(f.subList(1, f.size()));
+        for(int x = v, y; x != lca; x = top[parent[y]]){
+            f.add(x);
+            y = top[match[x]];
+            f.add(y);
+            push(y);
+        }
+        setTop(b, b);
+        for(int x = 1; x <= size; x++){
+            weight[b][x] = weight[x][b] = 0;
+        }
+        for(int x = 1; x <= m; x++){
+            flowerFrom[b][x] = 0;
+        }
+        for(int xs : f){
+            for(int x = 1; x <= size; x++){
+                if(weight[b][x] == 0 || dist(xs, x) < dist(b, x)){
+                    copyEdge(b, x, xs, x);
+                    copyEdge(x, b, x, xs);
+                }
+            }
+            for(int x = 1; x <= m; x++){
+                if(flowerFrom[xs][x] != 0){
+                    flowerFrom[b][x] = xs;
+                }
+            }
+        }
+        setSlack(b);
+    }
+
+    private void expandBlossom(int b){
+        ArrayList<Integer> f = flower.get(b);
+        for(int x : f){
+            setTop(x, x);
+        }
+        int xr = flowerFrom[b][edgeU[b][parent[b]]];
+        int pr = evenPosition(b, xr);
+        for(int i = 0; i < pr; i += 2){
+            int xs = f.get(i);
+            int xns = f.get(i + 1);
+            parent[xs] = edgeU[xns][xs];
+            side[xs] = 1;
+            side[xns] = 0;
+            slack[xs] = 0;
+            setSlack(xns);
+            push(xns);
+        }
+        side[xr] = 1;
+        parent[xr] = parent[b];
+        for(int i = pr + 1; i < f.size(); i++){
+            int xs = f.get(i);
+            side[xs] = -1;
+            setSlack(xs);
+        }
+        top[b] = 0;
+    }
+
+    //Handles a tight edge, returns true if it completed an augmenting path
+    private boolean foundEdge(int eu, int ev){
+        int u = top[eu];
+        int v = top[ev];
+        if(side[v] == -1){
+            parent[v] = eu;
+            side[v] = 1;
+            int nu = top[match[v]];
+            slack[v] = slack[nu] = 0;
+            side[nu] = 0;
+            push(nu);
+        }else if(side[v] == 0){
+            int lca = lowestCommonAncestor(u, v);
+            if(lca == 0){
+                augment(u, v);
+                augment(v, u);
+                return true;
+            }
+            addBlossom(u, lca, v);
+        }
+        return false;
+    }
+
+    //Grows alternating trees and adjusts the duals until one augmentation is made
+    private boolean augmentOnce(){
+        for(int x = 1; x <= size; x++){
+            side[x] = -1;
+            slack[x] = 0;
+        }
+        queue.clear();
+        for(int x = 1; x <= size; x++){
+            if(top[x] == x && match[x] == 0){
+                parent[x] = 0;
+                side[x] = 0;
+                push(x);
+            }
+        }
+        if(queue.isEmpty()){
+            return false;
+        }
+        while(true){
+            while(!queue.isEmpty()){
+                int u = queue.poll();
+                if(side[top[u]] == 1){
+                    continue;
+                }
+                for(int v = 1; v <= m; v++){
+                    if(weight[u][v] > 0 && top[u] != top[v]){
+                        if(dist(u, v) == 0){
+                            if(foundEdge(edgeU[u][v], edgeV[u][v])){
+                                return true;
+                            }
+                        }else{
+                            updateSlack(u, top[v]);
+                        }
+                    }
+                }
+            }
+            long d = Long.MAX_VALUE;
+            for(int b = m + 1; b <= size; b++){
+                if(top[b] == b && side[b] == 1){
+                    d = Math.min(d, label[b] / 2);
+                }
+            }
+            for(int x = 1; x <= size; x++){
+                if(top[x] == x && slack[x] != 0){
+                    if(side[x] == -1){
+                        d = Math.min(d, dist(slack[x], x));
+                    }else if(side[x] == 0){
+                        d = Math.min(d, dist(slack[x], x) / 2);
+                    }
+                }
+            }
+            for(int u = 1; u <= m; u++){
+                if(side[top[u]] == 0){
+                    if(label[u] <= d){
+                        return false;
+                    }
+                    label[u] -= d;
+                }else if(side[top[u]] == 1){
+                    label[u] += d;
+                }
+            }
+            for(int b = m + 1; b <= size; b++){
+                if(top[b] == b){
+                    if(side[b] == 0){
+                        label[b] += d * 2;
+                    }else if(side[b] == 1){
+                        label[b] -= d * 2;
+                    }
+                }
+            }
+            queue.clear();
+            for(int x = 1; x <= size; x++){
+                if(top[x] == x && slack[x] != 0 && top[slack[x]] != x && dist(slack[x], x) == 0){
+                    if(foundEdge(edgeU[slack[x]][x], edgeV[slack[x]][x])){
+                        return true;
+                    }
+                }
+            }
+            for(int b = m + 1; b <= size; b++){
+                if(top[b] == b && side[b] == 1 && label[b] == 0){
+                    expandBlossom(b);
+                }
+            }
+        }
+    }
+
+    private void solve(){
+        size = m;
+        long max = 0;
+        for(int u = 0; u <= m; u++){
+            top[u] = u;
+            flower.get(u).clear();
+        }
+        for(int u = 1; u <= m; u++){
+            for(int v = 1; v <= m; v++){
+                flowerFrom[u][v] = u == v ? u : 0;
+                max = Math.max(max, weight[u][v]);
+            }
+        }
+        for(int u = 1; u <= m; u++){
+            label[u] = max;
+        }
+        while(augmentOnce());
+    }
+}
@@ -1,74 +1,226 @@
 /*
 * Quicksort.java
-* 
+*
 * Author: Derrick Lee|dtl4734
 *
 * Contains the methods required to utilize quicksort.
-* 
+*
+* The sort works in place on anything that can compare and swap two of its
+* elements by index. It is an introsort: quicksort with a median of three
+* pivot that finishes short ranges with insertion sort and switches to
+* heapsort if the recursion gets too deep, so it never allocates and never
+* degrades to O(m^2) or deep recursion on ties. Large inputs are split
+* into fork-join tasks after each partition step.
+*
 */
 
-import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Quicksort {
 
-	/* Return arrays of size <= 1 (sorted). Else, pivot at the middle of the
-	   list. Copy smaller elements in less; larger elements into greater.
-	   Recursive sort left and right halves and merge results into a single
-	   list.
-	*/
+	//Ranges at most this long are finished by insertion sort
+	private static final int INSERTION_SORT_LIMIT = 24;
+
+	//Ranges at least this long are sorted in parallel
+	public static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	//An indexed sequence that can be sorted in place
+	public interface Sortable {
+
+		//Compares elements i and j, negative if i belongs before j
+		int compare(int i, int j);
+
+		//Swaps elements i and j
+		void swap(int i, int j);
+	}
+
+	//Adapts an array of edges to Sortable with the order of Edge.compare
+	private static class EdgeArray implements Sortable {
+		private final Edge[] edges;
+
+		EdgeArray(Edge[] edges) {
+			this.edges = edges;
+		}
+
+		public int compare(int i, int j) {
+			return edges[i].compare(edges[j]);
+		}
+
+		public void swap(int i, int j) {
+			Edge t = edges[i];
+			edges[i] = edges[j];
+			edges[j] = t;
+		}
+	}
 
     /*
-    * Quicksort algorithm to sort a list of edges
+    * Sorts a list of edges by weight, then column, then row
     *
     * Arguments:
-    *   list: the list to be sorted
+    *   list: the list to be sorted, it is sorted in place
     *
     * Returns:
     *   the sorted list
-    * 
+    *
     */
 	public static ArrayList<Edge> quicksort(ArrayList<Edge> list) {
-
-		if (list.size() <= 1) {
-			return list;
+		Edge[] edges = list.toArray(new Edge[0]);
+		sort(edges);
+		for (int i = 0; i < edges.length; i++) {
+			list.set(i, edges[i]);
 		}
+		return list;
+	}
 
-		int middle = (int) Math.ceil((double) list.size() / 2);
-    	Edge pivot = list.remove(middle);
+    /*
+    * Sorts an array of edges in place by weight, then column, then row
+    *
+    * Arguments:
+    *   edges: the array to be sorted
+    *
+    */
+	public static void sort(Edge[] edges) {
+		sort(new EdgeArray(edges), edges.length);
+	}
 
-		ArrayList<Edge> less = new ArrayList<Edge>();
-		ArrayList<Edge> greater = new ArrayList<Edge>();
+    /*
+    * Sorts the first size elements in place, in parallel when there are at
+    * least PARALLEL_THRESHOLD of them. Elements that compare equal may end
+    * up in any order.
+    *
+    * Arguments:
+    *   a: the elements to be sorted
+    *   size: the number of elements
+    *
+    */
+	public static void sort(Sortable a, int size) {
+		int depth = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(size, 1)));
+		if (size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+			ForkJoinPool.commonPool().invoke(new SortTask(a, 0, size - 1, depth));
+		} else {
+			introsort(a, 0, size - 1, depth);
+		}
+	}
 
-		for (Edge e : list) {
-			if (e.compare(pivot) <= 0) {
-				less.add(e);
+	/*
+	* Sorts a[lo..hi]. The smaller side of each partition is sorted
+	* recursively and the larger one by looping, so the stack stays at
+	* log m frames even before the depth limit is reached.
+	*
+	* Arguments:
+	*   a: the elements to be sorted
+	*   lo: first index of the range
+	*   hi: last index of the range (inclusive)
+	*   depth: partition steps left before falling back to heapsort
+	*/
+	private static void introsort(Sortable a, int lo, int hi, int depth) {
+		while (hi - lo > INSERTION_SORT_LIMIT) {
+			if (depth-- == 0) {
+				heapsort(a, lo, hi);
+				return;
+			}
+			int p = partition(a, lo, hi);
+			if (p - lo < hi - p) {
+				introsort(a, lo, p - 1, depth);
+				lo = p + 1;
 			} else {
-				greater.add(e);
+				introsort(a, p + 1, hi, depth);
+				hi = p - 1;
 			}
 		}
-
-		return concatenate(quicksort(less), pivot, quicksort(greater));
+		insertionSort(a, lo, hi);
 	}
 
 	/*
-    * Combines the two separated lists and the pivot back into a single list
-    * 
-    * Arguments:
-    *   list1: the first list to be merged
-    *   pivot: the pivot value from quicksort. Concatenated second
-    *   list2: the second list to be merged. Concatenated third
-    *
-    * Returns:
-    *   The concatenated list
-    */
-	public static ArrayList<Edge> concatenate(ArrayList<Edge> list1, Edge pivot, ArrayList<Edge> list2) {
-        ArrayList<Edge> list = new ArrayList();
-		list.addAll(list1);
-		list.add(pivot);
-		list.addAll(list2);
-		return list;
+	* Partitions a[lo..hi] around the median of its first, middle and last
+	* elements. Elements equal to the pivot may go to either side, which
+	* keeps runs of ties balanced.
+	*
+	* Returns:
+	*   the final index of the pivot
+	*/
+	private static int partition(Sortable a, int lo, int hi) {
+		int mid = (lo + hi) >>> 1;
+		if (a.compare(mid, lo) < 0)
+			a.swap(mid, lo);
+		if (a.compare(hi, lo) < 0)
+			a.swap(hi, lo);
+		if (a.compare(hi, mid) < 0)
+			a.swap(hi, mid);
+		int pivot = hi - 1;
+		a.swap(mid, pivot);
+		int i = lo;
+		int j = pivot;
+		while (true) {
+			while (a.compare(++i, pivot) < 0);
+			while (a.compare(--j, pivot) > 0);
+			if (i >= j)
+				break;
+			a.swap(i, j);
+		}
+		a.swap(i, pivot);
+		return i;
 	}
 
+	//Sorts a short range by insertion
+	private static void insertionSort(Sortable a, int lo, int hi) {
+		for (int i = lo + 1; i <= hi; i++) {
+			for (int j = i; j > lo && a.compare(j, j - 1) < 0; j--) {
+				a.swap(j, j - 1);
+			}
+		}
+	}
+
+	//Sorts a range with an in-place max-heap, used when quicksort goes too deep
+	private static void heapsort(Sortable a, int lo, int hi) {
+		int n = hi - lo + 1;
+		for (int i = n / 2 - 1; i >= 0; i--) {
+			sink(a, lo, i, n);
+		}
+		for (int end = n - 1; end > 0; end--) {
+			a.swap(lo, lo + end);
+			sink(a, lo, 0, end);
+		}
+	}
+
+	private static void sink(Sortable a, int lo, int i, int n) {
+		while (2 * i + 1 < n) {
+			int c = 2 * i + 1;
+			if (c + 1 < n && a.compare(lo + c + 1, lo + c) > 0)
+				c++;
+			if (a.compare(lo + i, lo + c) >= 0)
+				break;
+			a.swap(lo + i, lo + c);
+			i = c;
+		}
+	}
 
-}
\ No newline at end of file
+	//Partitions a range and sorts both sides as separate tasks while they are large
+	private static class SortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Sortable a;
+		private final int lo;
+		private final int hi;
+		private final int depth;
+
+		SortTask(Sortable a, int lo, int hi, int depth) {
+			this.a = a;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo + 1 < PARALLEL_THRESHOLD || depth == 0) {
+				introsort(a, lo, hi, depth);
+				return;
+			}
+			int p = partition(a, lo, hi);
+			invokeAll(new SortTask(a, lo, p - 1, depth - 1), new SortTask(a, p + 1, hi, depth - 1));
+		}
+	}
+}
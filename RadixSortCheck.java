@@ -0,0 +1,127 @@
+/*
+* RadixSortCheck.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Checks that PackedEdges.radixSort puts the edges in exactly the order of
+* the Quicksort based sort() and of Quicksort.quicksort over the Edge
+* list. The inputs are built to be full of ties: cities on a small integer
+* grid with TSPLIB rounding, many cities on the same point, and cities so
+* far from the origin that different weights round to the same float.
+*
+* Exits with status 1 if any ordering differs.
+*
+* Usage: java RadixSortCheck [rounds]
+* (by default 20 rounds of every kind of input)
+*
+*/
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class RadixSortCheck{
+
+    /*
+    * Builds a complete graph on the given points
+    *
+    * Arguments:
+    *   xs, ys: the coordinates of the cities
+    *   metric: how the weights follow from the coordinates, see Graph
+    *
+    * Returns:
+    *   the graph with its weights filled in
+    *
+    */
+    static Graph graph(double[] xs, double[] ys, int metric){
+        Graph g = new Graph(xs, ys, metric, false);
+        g.generateAM();
+        return g;
+    }
+
+    /*
+    * Sorts the edges of a graph in the three ways and compares the orders
+    *
+    * Arguments:
+    *   g: the graph whose edges are sorted
+    *
+    * Returns:
+    *   true if all three orders are identical
+    *
+    */
+    static boolean sameOrder(Graph g){
+        PackedEdges quick = new PackedEdges(g);
+        PackedEdges radix = new PackedEdges(g);
+        quick.sort();
+        radix.radixSort();
+
+        g.generateEdges(g);
+        ArrayList<Edge> list = Quicksort.quicksort(g.getEdges());
+
+        if(quick.size() != radix.size() || quick.size() != list.size() || !radix.isSorted())
+            return false;
+        for(int i = 0; i < quick.size(); i++){
+            Edge e = list.get(i);
+            if(quick.row(i) != radix.row(i) || quick.column(i) != radix.column(i)
+                    || quick.row(i) != e.row || quick.column(i) != e.column)
+                return false;
+        }
+        return true;
+    }
+
+    public static void main(String[] args){
+        if(args.length > 1 || (args.length == 1 && !GreedyTSP.isInt(args[0]))){
+            System.out.println("Usage: java RadixSortCheck [rounds]");
+            System.exit(0);
+        }
+        int rounds = args.length == 1 ? Integer.parseInt(args[0]) : 20;
+        Random random = new Random(1);
+        int checked = 0;
+        int failed = 0;
+
+        for(int round = 0; round < rounds; round++){
+            int n = 2 + random.nextInt(300);
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+
+            //integer weights on a 6 x 6 grid
+            for(int i = 0; i < n; i++){
+                xs[i] = random.nextInt(6);
+                ys[i] = random.nextInt(6);
+            }
+            String[] kinds = {"grid", "same point", "far away"};
+            Graph[] graphs = new Graph[3];
+            graphs[0] = graph(xs, ys, Graph.EUC_2D);
+
+            //every city on one of two points, most weights are 0
+            double[] px = new double[n];
+            double[] py = new double[n];
+            for(int i = 0; i < n; i++){
+                px[i] = random.nextInt(4) == 0 ? 1 : 0;
+            }
+            graphs[1] = graph(px, py, Graph.EUCLIDEAN);
+
+            //weights that differ by less than a float can tell apart
+            double[] fx = new double[n];
+            double[] fy = new double[n];
+            for(int i = 0; i < n; i++){
+                fx[i] = 1e7 * (i % 2) + random.nextInt(3) * 1e-3;
+                fy[i] = random.nextInt(3) * 1e-3;
+            }
+            graphs[2] = graph(fx, fy, Graph.EUCLIDEAN);
+
+            for(int k = 0; k < graphs.length; k++){
+                checked++;
+                if(!sameOrder(graphs[k])){
+                    System.out.println("Round " + round + ", " + kinds[k] + " with " + n
+                            + " cities: radix and Quicksort orders differ");
+                    failed++;
+                }
+            }
+        }
+
+        System.out.println(checked + " edge lists compared, " + failed + " failures");
+        if(failed > 0){
+            System.exit(1);
+        }
+    }
+}
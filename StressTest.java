@@ -0,0 +1,141 @@
+/*
+* StressTest.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Checks that independent solves can run at the same time. Every job
+* builds its own graph from its own seed and solves it with one of the
+* solvers (greedy list, greedy packed, MST, branch and bound). All jobs
+* are run once one after another and once on a pool of threads, and each
+* concurrent tour must be identical to the sequential one. A second solve
+* of a graph that is already being solved must be refused.
+*
+* Exits with status 1 if any check fails.
+*
+* Usage: java StressTest [jobs] [threads]
+* (by default 100 jobs on 8 threads)
+*
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class StressTest{
+
+    /*
+    * Creates the solver and the graph of a job. The kind of solver and the
+    * size of the graph follow from the job number, the coordinates from
+    * its seed.
+    *
+    * Arguments:
+    *   job: the number of the job
+    *
+    * Returns:
+    *   the tour of the job
+    *
+    */
+    static int[] run(int job){
+        TspSolver solver;
+        int nodes;
+        switch(job % 4){
+            case 0:
+                solver = new GreedyTSP("list", 10);
+                nodes = 150;
+                break;
+            case 1:
+                solver = new GreedyTSP("packed", 10);
+                nodes = 300;
+                break;
+            case 2:
+                solver = new MstTSP("heap");
+                nodes = 300;
+                break;
+            default:
+                solver = new OptimalTSP("bnb");
+                nodes = 11;
+                break;
+        }
+        Graph g = new Graph(nodes);
+        g.generateCoords(job + 1);
+        g.generateAM();
+        return solver.solve(g).getTour();
+    }
+
+    /*
+    * Checks that a graph held by one solve cannot be solved again until
+    * that solve is done
+    *
+    * Returns:
+    *   true if the second solve was refused and worked afterwards
+    *
+    */
+    static boolean sharedGraphRefused(){
+        Graph g = new Graph(20);
+        g.generateCoords(1);
+        g.generateAM();
+        g.beginSolve();
+        boolean refused = false;
+        try{
+            new MstTSP().solve(g);
+        }catch(IllegalStateException e){
+            refused = true;
+        }finally{
+            g.endSolve();
+        }
+        return refused && new MstTSP().solve(g).getTour().length == 20;
+    }
+
+    public static void main(String[] args) throws InterruptedException{
+        if(args.length > 2 || (args.length > 0 && !GreedyTSP.isInt(args[0]))
+                || (args.length > 1 && !GreedyTSP.isInt(args[1]))){
+            System.out.println("Usage: java StressTest [jobs] [threads]");
+            System.exit(0);
+        }
+        int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        if(jobs <= 0 || threads <= 0){
+            System.out.println("Jobs and threads must be greater than 0");
+            System.exit(0);
+        }
+
+        int[][] expected = new int[jobs][];
+        for(int i = 0; i < jobs; i++){
+            expected[i] = run(i);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+        for(int i = 0; i < jobs; i++){
+            final int job = i;
+            results.add(pool.submit(() -> run(job)));
+        }
+        int failed = 0;
+        for(int i = 0; i < jobs; i++){
+            try{
+                if(!Arrays.equals(expected[i], results.get(i).get())){
+                    System.out.println("Job " + i + ": concurrent tour differs from the sequential one");
+                    failed++;
+                }
+            }catch(ExecutionException e){
+                System.out.println("Job " + i + ": " + e.getCause());
+                failed++;
+            }
+        }
+        pool.shutdown();
+
+        if(!sharedGraphRefused()){
+            System.out.println("A graph in use was solved a second time");
+            failed++;
+        }
+
+        System.out.println(jobs + " jobs on " + threads + " threads, " + failed + " failures");
+        if(failed > 0){
+            System.exit(1);
+        }
+    }
+}
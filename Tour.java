@@ -0,0 +1,167 @@
+/*
+* Tour.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* A closed tour stored as an array of cities together with the position
+* of every city in that array, so that the successor and predecessor of a
+* city are found in O(1). Tours are undirected: a segment is reversed by
+* flipping whichever side of the tour is shorter, which leaves the same
+* cycle with possibly the opposite orientation.
+*
+*/
+
+public class Tour{
+
+    private int order[];
+    private int position[];
+
+    /*
+    * Creates a tour visiting the cities in the given order
+    *
+    * Arguments:
+    *   cities: every vertex exactly once
+    *
+    */
+    public Tour(int[] cities){
+        order = cities.clone();
+        position = new int[order.length];
+        for(int i = 0; i < order.length; i++){
+            position[order[i]] = i;
+        }
+    }
+
+    //Returns the number of cities
+    public int size(){
+        return order.length;
+    }
+
+    //Returns the city after v
+    public int next(int v){
+        int i = position[v] + 1;
+        return order[i == order.length ? 0 : i];
+    }
+
+    //Returns the city before v
+    public int prev(int v){
+        int i = position[v] - 1;
+        return order[i < 0 ? order.length - 1 : i];
+    }
+
+    /*
+    * Checks if b lies on the path that runs forward from a to c, ends
+    * included
+    *
+    * Arguments:
+    *   a: the first city of the path
+    *   b: the city to look for
+    *   c: the last city of the path
+    *
+    */
+    public boolean between(int a, int b, int c){
+        int i = position[a];
+        int j = position[b];
+        int k = position[c];
+        if(i <= k)
+            return i <= j && j <= k;
+        return j >= i || j <= k;
+    }
+
+    /*
+    * Reverses the path that runs forward from one city to another. When
+    * that path is longer than half the tour the rest of the tour is
+    * reversed instead, which gives the same cycle.
+    *
+    * Arguments:
+    *   from: the first city of the path
+    *   to: the last city of the path
+    *
+    */
+    public void reverse(int from, int to){
+        int n = order.length;
+        int i = position[from];
+        int j = position[to];
+        int length = j - i;
+        if(length < 0)
+            length += n;
+        length++;
+        if(2 * length > n){
+            int t = i;
+            i = j + 1;
+            j = t - 1;
+            length = n - length;
+        }
+        for(int s = 0; s < length / 2; s++){
+            if(i >= n)
+                i -= n;
+            if(j < 0)
+                j += n;
+            int a = order[i];
+            int b = order[j];
+            order[i] = b;
+            position[b] = i;
+            order[j] = a;
+            position[a] = j;
+            i++;
+            j--;
+        }
+    }
+
+    /*
+    * Replaces the tour edges (a,b) and (c,d) by (a,c) and (b,d). Either b
+    * follows a and d follows c, or b precedes a and d precedes c.
+    *
+    * Arguments:
+    *   a, b: the first edge to remove
+    *   c, d: the second edge to remove
+    *
+    */
+    public void twoOptMove(int a, int b, int c, int d){
+        if(next(a) == b)
+            reverse(b, c);
+        else
+            reverse(c, b);
+    }
+
+    /*
+    * Exchanges two consecutive paths, turning ... a B C d ... into
+    * ... a C B d ... (a double bridge). Only the cities of the two paths
+    * are moved.
+    *
+    * Arguments:
+    *   first: the first city of B
+    *   length1: the number of cities in B
+    *   length2: the number of cities in C, length1 + length2 <= size()
+    *
+    */
+    public void swapSegments(int first, int length1, int length2){
+        int n = order.length;
+        int start = position[first];
+        int[] saved = new int[length1 + length2];
+        for(int i = 0; i < saved.length; i++){
+            saved[i] = order[(start + i) % n];
+        }
+        for(int i = 0; i < saved.length; i++){
+            int v = saved[(i + length1) % saved.length];
+            int at = (start + i) % n;
+            order[at] = v;
+            position[v] = at;
+        }
+    }
+
+    //Returns the cities in tour order, starting at vertex 0
+    public int[] toArray(){
+        int n = order.length;
+        int[] cities = new int[n];
+        int start = n == 0 ? 0 : position[0];
+        for(int i = 0; i < n; i++){
+            cities[i] = order[(start + i) % n];
+        }
+        return cities;
+    }
+
+    //Returns the length of the tour in the given graph
+    public double length(Graph g){
+        return g.tourDistance(order);
+    }
+}
@@ -0,0 +1,463 @@
+/*
+* TspLoader.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Loads a problem instance from a file instead of generating it. Two
+* formats are read:
+*   .tsp: TSPLIB, with EDGE_WEIGHT_TYPE EUC_2D, GEO, ATT or EXPLICIT
+*         (any of the nine EDGE_WEIGHT_FORMAT matrix layouts)
+*   anything else: CSV, one city per line as x,y or id,x,y. Commas,
+*         semicolons, spaces and tabs all separate fields, a first line
+*         that does not start with a number is taken as a header and
+*         lines starting with # are skipped.
+*
+* The file is memory mapped and parsed byte by byte straight into double
+* arrays. Only the few TSPLIB header lines become Strings, the city and
+* weight lines allocate nothing.
+*
+* Instances with more than Graph.MATRIX_LIMIT cities are loaded lazily,
+* the others get their weight matrix filled in.
+*
+*/
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TspLoader{
+
+    //Exact powers of ten, a number with at most 15 digits and one of these is parsed exactly
+    private static final double POWERS[] = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final String name;
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private int pos;
+
+    private TspLoader(String name, MappedByteBuffer buffer){
+        this.name = name;
+        this.buffer = buffer;
+        limit = buffer.limit();
+    }
+
+    /*
+    * Loads an instance, choosing the format by the file extension
+    *
+    * Arguments:
+    *   path: the file to read
+    *
+    * Returns:
+    *   the graph of the instance
+    *
+    */
+    public static Graph load(String path) throws IOException {
+        Path file = Paths.get(path);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE)
+                throw new IOException(path + ": files over 2 GB are not supported");
+            TspLoader loader = new TspLoader(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            return path.toLowerCase().endsWith(".tsp") ? loader.tsplib() : loader.csv();
+        }
+    }
+
+    /*
+    * Loads an instance for a command line program, printing the problem
+    * and exiting if the file cannot be read
+    *
+    * Arguments:
+    *   path: the file to read
+    *
+    * Returns:
+    *   the graph of the instance
+    *
+    */
+    public static Graph loadOrExit(String path){
+        try{
+            return load(path);
+        }catch(java.nio.file.NoSuchFileException e){
+            System.out.println("Could not load " + path + ": no such file");
+        }catch(IOException | IllegalArgumentException e){
+            System.out.println("Could not load " + path + ": " + e.getMessage());
+        }
+        System.exit(1);
+        return null;
+    }
+
+    /*
+    * Reads a TSPLIB file: keyword lines up to the data sections, then the
+    * coordinates or the weights
+    *
+    * Returns:
+    *   the graph of the instance
+    *
+    */
+    private Graph tsplib() throws IOException {
+        int n = -1;
+        String type = null;
+        String format = "FULL_MATRIX";
+        double xs[] = null;
+        double ys[] = null;
+        Graph explicit = null;
+
+        while(skipBlank()){
+            String keyword = word();
+            if(keyword.equals("EOF"))
+                break;
+            if(keyword.endsWith("_SECTION")){
+                skipLine();
+                if(n < 0 || type == null)
+                    throw error("DIMENSION and EDGE_WEIGHT_TYPE must come before " + keyword);
+                if(keyword.equals("NODE_COORD_SECTION")){
+                    if(type.equals("EXPLICIT"))
+                        throw error("an EXPLICIT instance has no NODE_COORD_SECTION");
+                    xs = new double[n];
+                    ys = new double[n];
+                    coordinates(xs, ys);
+                }else if(keyword.equals("EDGE_WEIGHT_SECTION")){
+                    explicit = weights(n, format);
+                }else if(keyword.equals("DISPLAY_DATA_SECTION")){
+                    //only for drawing, the weights come from EDGE_WEIGHT_SECTION
+                    coordinates(new double[n], new double[n]);
+                }else{
+                    throw error(keyword + " is not supported");
+                }
+                continue;
+            }
+            String value = value();
+            if(keyword.equals("DIMENSION")){
+                try{
+                    n = Integer.parseInt(value);
+                }catch(NumberFormatException e){
+                    throw error("DIMENSION must be a number");
+                }
+                if(n <= 0)
+                    throw error("DIMENSION must be greater than 0");
+            }else if(keyword.equals("TYPE")){
+                if(!value.startsWith("TSP"))
+                    throw error("only symmetric TSP instances are supported, not " + value);
+            }else if(keyword.equals("EDGE_WEIGHT_TYPE")){
+                if(!value.equals("EUC_2D") && !value.equals("GEO") && !value.equals("ATT")
+                        && !value.equals("EXPLICIT"))
+                    throw error("EDGE_WEIGHT_TYPE must be EUC_2D, GEO, ATT or EXPLICIT, not " + value);
+                type = value;
+            }else if(keyword.equals("EDGE_WEIGHT_FORMAT")){
+                format = value;
+            }
+            //NAME, COMMENT, NODE_COORD_TYPE, DISPLAY_DATA_TYPE and CAPACITY carry nothing needed here
+        }
+
+        if(type == null)
+            throw error("EDGE_WEIGHT_TYPE is missing");
+        if(type.equals("EXPLICIT")){
+            if(explicit == null)
+                throw error("EDGE_WEIGHT_SECTION is missing");
+            return explicit;
+        }
+        if(xs == null)
+            throw error("NODE_COORD_SECTION is missing");
+        int metric = type.equals("EUC_2D") ? Graph.EUC_2D : type.equals("GEO") ? Graph.GEO : Graph.ATT;
+        return graph(xs, ys, n, metric);
+    }
+
+    /*
+    * Reads n lines of node number, x and y. Node numbers start at 1 and
+    * may come in any order, anything after y on a line is ignored.
+    *
+    * Arguments:
+    *   xs, ys: filled with the coordinates
+    *
+    */
+    private void coordinates(double[] xs, double[] ys) throws IOException {
+        int n = xs.length;
+        boolean seen[] = new boolean[n];
+        for(int i = 0; i < n; i++){
+            double id = number();
+            int node = (int) id - 1;
+            if(node != id - 1 || node < 0 || node >= n || seen[node])
+                throw error("bad node number " + id);
+            seen[node] = true;
+            xs[node] = field("node " + (node + 1) + " needs x and y on its line");
+            ys[node] = field("node " + (node + 1) + " needs x and y on its line");
+            skipLine();
+        }
+    }
+
+    /*
+    * Reads the weights of an EXPLICIT instance. The lower and upper row
+    * layouts of a symmetric matrix list the same values in the same order
+    * as the upper and lower column layouts, so each column format is read
+    * as its row counterpart.
+    *
+    * Arguments:
+    *   n: the number of cities
+    *   format: the EDGE_WEIGHT_FORMAT
+    *
+    * Returns:
+    *   the graph holding the weights
+    *
+    */
+    private Graph weights(int n, String format) throws IOException {
+        if(n > Graph.MATRIX_LIMIT)
+            throw error("EXPLICIT instances are limited to " + Graph.MATRIX_LIMIT + " cities");
+        boolean full = format.equals("FULL_MATRIX");
+        boolean upper = format.equals("UPPER_ROW") || format.equals("LOWER_COL")
+                || format.equals("UPPER_DIAG_ROW") || format.equals("LOWER_DIAG_COL");
+        boolean lower = format.equals("LOWER_ROW") || format.equals("UPPER_COL")
+                || format.equals("LOWER_DIAG_ROW") || format.equals("UPPER_DIAG_COL");
+        if(!full && !upper && !lower)
+            throw error("EDGE_WEIGHT_FORMAT " + format + " is not supported");
+        boolean diagonal = format.contains("DIAG");
+
+        Graph g = Graph.explicit(n);
+        for(int i = 0; i < n; i++){
+            int from = full || lower ? 0 : diagonal ? i : i + 1;
+            int to = full || upper ? n - 1 : diagonal ? i : i - 1;
+            for(int j = from; j <= to; j++){
+                double w = number();
+                if(j < i || j > i && upper)
+                    g.addEdgeWeight(i, j, w);
+            }
+        }
+        return g;
+    }
+
+    /*
+    * Reads a CSV file of x,y or id,x,y lines
+    *
+    * Returns:
+    *   the graph of the instance
+    *
+    */
+    private Graph csv() throws IOException {
+        double xs[] = new double[Math.max(16, limit / 16)];
+        double ys[] = new double[xs.length];
+        int n = 0;
+        int columns = 0;
+        boolean first = true;
+
+        while(skipBlank()){
+            byte b = buffer.get(pos);
+            if(b == '#' || first && !startsNumber(b)){
+                skipLine();
+                first = false;
+                continue;
+            }
+            first = false;
+            if(columns == 0)
+                columns = countFields();
+            if(columns < 2)
+                throw error("a line needs x,y or id,x,y");
+            if(n == xs.length){
+                xs = Arrays.copyOf(xs, 2 * n);
+                ys = Arrays.copyOf(ys, 2 * n);
+            }
+            if(columns >= 3)
+                field("a line needs id,x,y like the first one");
+            xs[n] = field("a line needs x,y or id,x,y");
+            ys[n] = field("a line needs x,y or id,x,y");
+            n++;
+            skipLine();
+        }
+        if(n == 0)
+            throw error("no cities found");
+        return graph(xs, ys, n, Graph.EUCLIDEAN);
+    }
+
+    //Builds the graph over the first n coordinates, lazily if it is too big for a matrix.
+    //Arrays of exactly n entries are handed to the graph without a copy.
+    private static Graph graph(double[] xs, double[] ys, int n, int metric){
+        if(xs.length != n){
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+        }
+        Graph g = Graph.wrap(xs, ys, metric, n > Graph.MATRIX_LIMIT);
+        g.generateAM();
+        return g;
+    }
+
+    //Counts the fields of the current line without consuming it
+    private int countFields(){
+        int start = pos;
+        int count = 0;
+        while(pos < limit && !isLineEnd(buffer.get(pos))){
+            skipSeparators();
+            if(pos < limit && !isLineEnd(buffer.get(pos))){
+                count++;
+                while(pos < limit && !isSeparator(buffer.get(pos)) && !isLineEnd(buffer.get(pos)))
+                    pos++;
+            }
+        }
+        pos = start;
+        return count;
+    }
+
+    //Parses the next number, skipping any separators and line ends before it
+    private double number() throws IOException {
+        skipBlank();
+        return parse();
+    }
+
+    /*
+    * Parses the next number of the current line, so that a record with a
+    * missing field cannot take its value from the line below
+    *
+    * Arguments:
+    *   missing: what the line lacks if it has no further field
+    *
+    * Returns:
+    *   the value of the number
+    *
+    */
+    private double field(String missing) throws IOException {
+        skipSeparators();
+        if(pos >= limit || isLineEnd(buffer.get(pos)))
+            throw error(missing);
+        return parse();
+    }
+
+    /*
+    * Parses the number at the current position. Up to 15 significant digits
+    * with a small exponent are converted with one correctly rounded
+    * operation; anything else is handed to Double.parseDouble.
+    *
+    * Returns:
+    *   the value of the number
+    *
+    */
+    private double parse() throws IOException {
+        int start = pos;
+        boolean negative = false;
+        if(pos < limit && (buffer.get(pos) == '-' || buffer.get(pos) == '+')){
+            negative = buffer.get(pos) == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        boolean point = false;
+        while(pos < limit){
+            byte b = buffer.get(pos);
+            if(b >= '0' && b <= '9'){
+                any = true;
+                if(digits < 18){
+                    if(mantissa != 0 || b != '0')
+                        digits++;
+                    mantissa = mantissa * 10 + (b - '0');
+                    if(point)
+                        exponent--;
+                }else if(!point){
+                    exponent++;
+                }
+            }else if(b == '.' && !point){
+                point = true;
+            }else{
+                break;
+            }
+            pos++;
+        }
+        if(!any)
+            throw error("expected a number");
+        if(pos < limit && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E')){
+            pos++;
+            boolean negativeExponent = false;
+            if(pos < limit && (buffer.get(pos) == '-' || buffer.get(pos) == '+')){
+                negativeExponent = buffer.get(pos) == '-';
+                pos++;
+            }
+            int e = 0;
+            boolean expDigits = false;
+            while(pos < limit && buffer.get(pos) >= '0' && buffer.get(pos) <= '9'){
+                e = Math.min(e * 10 + (buffer.get(pos) - '0'), 100000);
+                expDigits = true;
+                pos++;
+            }
+            if(!expDigits)
+                throw error("expected an exponent");
+            exponent += negativeExponent ? -e : e;
+        }
+
+        double value;
+        if(digits > 15 || exponent < -22 || exponent > 22)
+            return Double.parseDouble(text(start, pos));
+        value = exponent < 0 ? mantissa / POWERS[-exponent] : mantissa * POWERS[exponent];
+        return negative ? -value : value;
+    }
+
+    //Skips blank space and empty lines, returns false at the end of the file
+    private boolean skipBlank(){
+        while(pos < limit && (isSeparator(buffer.get(pos)) || isLineEnd(buffer.get(pos))))
+            pos++;
+        return pos < limit;
+    }
+
+    //Skips the rest of the current line and its line end
+    private void skipLine(){
+        while(pos < limit && buffer.get(pos) != '\n')
+            pos++;
+        if(pos < limit)
+            pos++;
+    }
+
+    //Skips spaces, tabs, commas and semicolons on the current line
+    private void skipSeparators(){
+        while(pos < limit && isSeparator(buffer.get(pos)))
+            pos++;
+    }
+
+    //Reads a TSPLIB keyword, which ends at a colon or blank space
+    private String word(){
+        int start = pos;
+        while(pos < limit && buffer.get(pos) != ':' && !isSeparator(buffer.get(pos))
+                && !isLineEnd(buffer.get(pos)))
+            pos++;
+        return text(start, pos).toUpperCase();
+    }
+
+    //Reads the value after a keyword: the rest of the line past the colon, trimmed
+    private String value(){
+        skipSeparators();
+        if(pos < limit && buffer.get(pos) == ':')
+            pos++;
+        int start = pos;
+        while(pos < limit && !isLineEnd(buffer.get(pos)))
+            pos++;
+        String value = text(start, pos).trim();
+        skipLine();
+        return value;
+    }
+
+    //Copies bytes of the file into a String
+    private String text(int from, int to){
+        byte bytes[] = new byte[to - from];
+        for(int i = from; i < to; i++)
+            bytes[i - from] = buffer.get(i);
+        return new String(bytes, java.nio.charset.StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isSeparator(byte b){
+        return b == ' ' || b == '\t' || b == ',' || b == ';';
+    }
+
+    private static boolean isLineEnd(byte b){
+        return b == '\n' || b == '\r';
+    }
+
+    private static boolean startsNumber(byte b){
+        return b >= '0' && b <= '9' || b == '-' || b == '+' || b == '.';
+    }
+
+    //An exception naming the file and the byte offset where parsing stopped
+    private IOException error(String message){
+        return new IOException(name + " at byte " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+* TspReporter.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Receives the result of a solver run, usually to print it. Keeping this
+* out of the solvers means a run without a reporter does no formatting or
+* output at all.
+*
+*/
+
+import java.text.DecimalFormat;
+
+public interface TspReporter{
+
+    /*
+    * Handles a finished run
+    *
+    * Arguments:
+    *   solver: the solver that ran
+    *   g: the graph it ran on
+    *   result: what it returned
+    *
+    */
+    void report(TspSolver solver, Graph g, TspResult result);
+
+    /*
+    * Prints the tour and its runtime exactly as the command line solvers
+    * always have: "Optimal distance" for OptimalTSP, "Distance using" for
+    * the others, and "Mst" in the runtime line of MstTSP. The time of each
+    * phase can be added below when asked for. Not thread safe, each thread
+    * should use its own.
+    */
+    class Console implements TspReporter{
+
+        private DecimalFormat df = new DecimalFormat("0.00");
+        private final boolean phases;
+
+        //Creates a reporter printing only the tour and its runtime
+        public Console(){
+            this(false);
+        }
+
+        /*
+        * Constructor for the console reporter
+        *
+        * Arguments:
+        *   phases: also print the time of each phase when there is more than one
+        *
+        */
+        public Console(boolean phases){
+            this.phases = phases;
+        }
+
+        public void report(TspSolver solver, Graph g, TspResult result){
+            String name = solver.name();
+            int[] tour = result.getTour();
+            if(name.equals("optimal")){
+                System.out.printf("\nOptimal distance: " + df.format(result.getLength()));
+                System.out.printf(" for path 0");
+                for(int j = 1; j < tour.length; j++){
+                    System.out.printf(" %d", tour[j]);
+                }
+                System.out.println(" 0");
+            }else{
+                System.out.printf("\nDistance using %s: %s for path ", name, df.format(result.getLength()));
+                for (int v : tour){
+                    System.out.printf("%d ", v);
+                }
+                //the greedy path always carried its closing 0 like every other city
+                System.out.println(name.equals("greedy") ? "0 " : "0");
+            }
+            System.out.printf("Runtime for %s TSP   : %d milliseconds\n", name.equals("mst") ? "Mst" : name,
+                    result.getTotalNanos() / 1000000L);
+            if(phases && result.phaseCount() > 1){
+                for(int i = 0; i < result.phaseCount(); i++){
+                    System.out.printf("    %s: %d milliseconds\n", result.getPhaseName(i), result.getPhaseNanos(i) / 1000000L);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+* TspResult.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* The outcome of a TspSolver run: the tour, its length and how long each
+* phase of the solver took. Phase times are measured with System.nanoTime.
+*
+*/
+
+public class TspResult{
+
+    private final int tour[];
+    private final double length;
+    private final String phaseNames[];
+    private final long phaseNanos[];
+
+    /*
+    * Constructor for the TspResult object
+    *
+    * Arguments:
+    *   tour: every vertex once, starting at vertex 0
+    *   length: the length of the closed tour
+    *   phaseNames: the names of the solver's phases, in order
+    *   phaseNanos: the time spent in each phase in nanoseconds
+    *
+    */
+    public TspResult(int[] tour, double length, String[] phaseNames, long[] phaseNanos){
+        if(phaseNames.length != phaseNanos.length){
+            throw new IllegalArgumentException("every phase needs a name and a time");
+        }
+        this.tour = tour;
+        this.length = length;
+        this.phaseNames = phaseNames;
+        this.phaseNanos = phaseNanos;
+    }
+
+    //Returns the tour, starting at vertex 0 and not repeating it at the end
+    public int[] getTour(){
+        return tour;
+    }
+
+    //Returns the length of the closed tour
+    public double getLength(){
+        return length;
+    }
+
+    //Returns the number of phases
+    public int phaseCount(){
+        return phaseNames.length;
+    }
+
+    //Returns the name of phase i
+    public String getPhaseName(int i){
+        return phaseNames[i];
+    }
+
+    //Returns the time spent in phase i in nanoseconds
+    public long getPhaseNanos(int i){
+        return phaseNanos[i];
+    }
+
+    //Returns the time spent in all phases in nanoseconds
+    public long getTotalNanos(){
+        long total = 0;
+        for(long t : phaseNanos){
+            total += t;
+        }
+        return total;
+    }
+}
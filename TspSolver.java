@@ -0,0 +1,71 @@
+/*
+* TspSolver.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Common entry point of the solvers for use from other code. A solver
+* instance holds its settings and any state of its last run, so each
+* thread uses its own instance. solve() does no printing; a TspReporter
+* can be given to print the result afterwards.
+*
+* A graph must not be shared between concurrent solves either: some
+* solvers store their working state (the MST, the edge list) in it.
+* Every solve claims its graph with Graph.beginSolve, so a second solve
+* of the same graph throws IllegalStateException until the first is done.
+*
+*/
+
+public interface TspSolver{
+
+    //Returns the short name of the method, as used in reports
+    String name();
+
+    /*
+    * Finds a tour
+    *
+    * Arguments:
+    *   g: the graph to solve, claimed with beginSolve for the whole solve,
+    *      IllegalStateException if another solve is using it
+    *
+    * Returns:
+    *   the tour, its length and the time spent in each phase
+    *
+    */
+    TspResult solve(Graph g);
+
+    /*
+    * Finds a tour and passes it to a reporter
+    *
+    * Arguments:
+    *   g: the graph to solve
+    *   reporter: receives the result, may be null
+    *
+    * Returns:
+    *   the tour, its length and the time spent in each phase
+    *
+    */
+    default TspResult solve(Graph g, TspReporter reporter){
+        TspResult result = solve(g);
+        if(reporter != null){
+            reporter.report(this, g, result);
+        }
+        return result;
+    }
+
+    /*
+    * Finds a tour through the given points
+    *
+    * Arguments:
+    *   xs: the x coordinate of every city
+    *   ys: the y coordinate of every city
+    *
+    * Returns:
+    *   the tour, its length and the time spent in each phase
+    *
+    */
+    default TspResult solve(double[] xs, double[] ys){
+        Graph g = new Graph(xs, ys, xs.length > Graph.MATRIX_LIMIT);
+        g.generateAM();
+        return solve(g);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+* TwoOpt.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* 2-opt local search for an existing tour. A move removes two tour edges
+* and reconnects the two paths the other way round. Only moves that add
+* an edge from a city to one of its k nearest neighbors are tried, and a
+* city whose neighborhood has yielded nothing is switched off (its
+* "don't-look bit" is set) until a move touches one of its tour edges
+* again. Each pass is therefore close to linear instead of O(n^2).
+*
+*/
+
+public class TwoOpt{
+
+    //Improvements smaller than this are treated as rounding noise
+    static final double EPSILON = 1e-9;
+
+    //Default number of nearest neighbors per city
+    public static final int NEIGHBORS = 10;
+
+    private Graph g;
+    private Tour tour;
+    private int neighbors[];
+    private int k;
+    private int queue[];
+    private boolean queued[];
+    private int head;
+    private int count;
+
+    /*
+    * Prepares a search over the given tour
+    *
+    * Arguments:
+    *   g: the graph the tour belongs to
+    *   tour: the tour to improve, it is changed in place
+    *   neighbors: the neighbor lists, k per city, closest first
+    *
+    */
+    public TwoOpt(Graph g, Tour tour, int[] neighbors){
+        int n = tour.size();
+        this.g = g;
+        this.tour = tour;
+        this.neighbors = neighbors;
+        k = n == 0 ? 0 : neighbors.length / n;
+        queue = new int[n];
+        queued = new boolean[n];
+    }
+
+    /*
+    * Improves a tour with 2-opt moves until none is left
+    *
+    * Arguments:
+    *   g: the graph the tour belongs to
+    *   cities: the tour, every vertex exactly once
+    *
+    * Returns:
+    *   the improved tour, starting at vertex 0
+    *
+    */
+    public static int[] improve(Graph g, int[] cities){
+        Tour tour = new Tour(cities);
+        new TwoOpt(g, tour, new KdTree(g).neighborLists(NEIGHBORS)).run();
+        return tour.toArray();
+    }
+
+    /*
+    * Improves a constructed tour and prints the distance before and after
+    * together with the time spent, for the solvers' command lines
+    *
+    * Arguments:
+    *   g: the graph the tour belongs to
+    *   cities: the constructed tour, every vertex exactly once
+    *   df: the format for distances
+    *   orOpt: also use Or-opt moves
+    *
+    */
+    public static void report(Graph g, int[] cities, java.text.DecimalFormat df, boolean orOpt){
+        String name = orOpt ? "Or-opt" : "2-opt";
+        double before = g.tourDistance(cities);
+        long time = System.currentTimeMillis();
+        int[] improved = orOpt ? OrOpt.improve(g, cities) : improve(g, cities);
+        long runtime = System.currentTimeMillis() - time;
+        double after = g.tourDistance(improved);
+
+        System.out.printf("\nDistance after %s: %s (was %s) for path ", name, df.format(after), df.format(before));
+        for (int v : improved){
+            System.out.printf("%d ", v);
+        }
+        System.out.println(improved.length > 0 ? "0" : "");
+        System.out.printf("Runtime for %s   : %d milliseconds\n", name, runtime);
+    }
+
+    //Runs until every city has its don't-look bit set
+    public void run(){
+        for(int v = 0; v < tour.size(); v++){
+            push(v);
+        }
+        while(count > 0){
+            int a = queue[head];
+            queued[a] = false;
+            head = head + 1 == queue.length ? 0 : head + 1;
+            count--;
+            if(improveCity(a)){
+                push(a);
+            }
+        }
+    }
+
+    //Switches a city's don't-look bit off
+    void push(int v){
+        if(!queued[v]){
+            queued[v] = true;
+            queue[(head + count) % queue.length] = v;
+            count++;
+        }
+    }
+
+    /*
+    * Tries both tour edges at a city against its neighbor list and applies
+    * the first improving move
+    *
+    * Arguments:
+    *   a: the city
+    *
+    * Returns:
+    *   true if the tour was changed
+    *
+    */
+    private boolean improveCity(int a){
+        for(int dir = 0; dir < 2; dir++){
+            int b = dir == 0 ? tour.next(a) : tour.prev(a);
+            double ab = g.getWeight(a, b);
+            for(int i = a * k; i < a * k + k; i++){
+                int c = neighbors[i];
+                double gain = ab - g.getWeight(a, c);
+                if(gain <= EPSILON){
+                    break;
+                }
+                int d = dir == 0 ? tour.next(c) : tour.prev(c);
+                if(c == b || d == a){
+                    continue;
+                }
+                if(gain + g.getWeight(c, d) - g.getWeight(b, d) > EPSILON){
+                    tour.twoOptMove(a, b, c, d);
+                    push(b);
+                    push(c);
+                    push(d);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
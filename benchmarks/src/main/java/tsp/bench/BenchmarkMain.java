@@ -0,0 +1,46 @@
+/*
+* BenchmarkMain.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Entry point of benchmarks.jar. Takes the usual JMH command line and
+* always adds the GC profiler, so every result comes with its allocation
+* rate. -h, -l, -lp and -lprof print instead of running, as with JMH's own
+* main class.
+*
+*/
+
+package tsp.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkMain{
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions command = new CommandLineOptions(args);
+        if(command.shouldHelp()){
+            command.showHelp();
+            return;
+        }
+        if(command.shouldListProfilers()){
+            command.listProfilers();
+            return;
+        }
+        Options options = new OptionsBuilder()
+                .parent(command)
+                .addProfiler(GCProfiler.class)
+                .build();
+        Runner runner = new Runner(options);
+        if(command.shouldList()){
+            runner.list();
+        }else if(command.shouldListWithParams()){
+            runner.listWithParams(command);
+        }else{
+            runner.run();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+* SolverBenchmarks.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Benchmarks of the three original solvers over a range of sizes and
+* seeds. Each size range keeps one call in the milliseconds to seconds.
+*
+*/
+
+package tsp.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmarks{
+
+    @State(Scope.Thread)
+    public static class Optimal{
+        @Param({"7", "8", "9"})
+        int n;
+        @Param({"1", "2", "3"})
+        long seed;
+        Supplier<Object> target;
+
+        @Setup
+        public void setup(){
+            target = Targets.get("optimal", n, seed);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Mst{
+        @Param({"100", "400", "1000"})
+        int n;
+        @Param({"1", "2", "3"})
+        long seed;
+        Supplier<Object> target;
+
+        @Setup
+        public void setup(){
+            target = Targets.get("mst", n, seed);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Greedy{
+        @Param({"50", "100", "200"})
+        int n;
+        @Param({"1", "2", "3"})
+        long seed;
+        Supplier<Object> target;
+
+        @Setup
+        public void setup(){
+            target = Targets.get("greedy", n, seed);
+        }
+    }
+
+    @Benchmark
+    public Object optimal(Optimal s){
+        return s.target.get();
+    }
+
+    @Benchmark
+    public Object mst(Mst s){
+        return s.target.get();
+    }
+
+    @Benchmark
+    public Object greedy(Greedy s){
+        return s.target.get();
+    }
+}
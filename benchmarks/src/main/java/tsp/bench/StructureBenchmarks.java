@@ -0,0 +1,96 @@
+/*
+* StructureBenchmarks.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Benchmarks of the data structures the solvers are built on: the binary
+* heap, union-find, the edge sort and the weight matrix.
+*
+*/
+
+package tsp.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructureBenchmarks{
+
+    //Operations that are linear or n log n in the number of elements
+    @State(Scope.Thread)
+    public static class Linear{
+        @Param({"1000", "10000", "100000"})
+        int n;
+        @Param({"1", "2", "3"})
+        long seed;
+        Supplier<Object> heap;
+        Supplier<Object> sets;
+        Supplier<Object> disjoint;
+
+        @Setup
+        public void setup(){
+            //the heap's graph has n^2 / 2 weights, keep it below 10000 vertices
+            heap = Targets.get("binaryHeap", Math.min(n, 10000), seed);
+            sets = Targets.get("pathCompression", n, seed);
+            disjoint = Targets.get("disjointSet", n, seed);
+        }
+    }
+
+    //Operations over all n(n-1)/2 edges of a graph
+    @State(Scope.Thread)
+    public static class Quadratic{
+        @Param({"100", "300", "1000"})
+        int n;
+        @Param({"1", "2", "3"})
+        long seed;
+        Supplier<Object> sort;
+        Supplier<Object> matrix;
+
+        @Setup
+        public void setup(){
+            sort = Targets.get("quicksort", n, seed);
+            matrix = Targets.get("generateAM", n, seed);
+        }
+    }
+
+    @Benchmark
+    public Object binaryHeap(Linear s){
+        return s.heap.get();
+    }
+
+    @Benchmark
+    public Object pathCompression(Linear s){
+        return s.sets.get();
+    }
+
+    @Benchmark
+    public Object disjointSet(Linear s){
+        return s.disjoint.get();
+    }
+
+    @Benchmark
+    public Object quicksort(Quadratic s){
+        return s.sort.get();
+    }
+
+    @Benchmark
+    public Object generateAM(Quadratic s){
+        return s.matrix.get();
+    }
+}
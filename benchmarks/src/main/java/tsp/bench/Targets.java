@@ -0,0 +1,42 @@
+/*
+* Targets.java
+*
+* Author: Derrick Lee|dtl4734
+*
+* Looks up the workloads of BenchmarkTargets, which sits in the default
+* package with the solvers and can therefore only be reached by name.
+*
+*/
+
+package tsp.bench;
+
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+
+final class Targets{
+
+    private Targets(){
+    }
+
+    /*
+    * Builds a workload
+    *
+    * Arguments:
+    *   name: the BenchmarkTargets method
+    *   n: the number of vertices
+    *   seed: the seed of the generated input
+    *
+    * Returns:
+    *   the workload, each get() runs the operation once
+    *
+    */
+    @SuppressWarnings("unchecked")
+    static Supplier<Object> get(String name, int n, long seed){
+        try{
+            Method m = Class.forName("BenchmarkTargets").getMethod(name, int.class, long.class);
+            return (Supplier<Object>) m.invoke(null, n, seed);
+        }catch(ReflectiveOperationException e){
+            throw new IllegalStateException("cannot load benchmark target " + name, e);
+        }
+    }
+}